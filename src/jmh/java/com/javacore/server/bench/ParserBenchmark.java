@@ -0,0 +1,105 @@
+package com.javacore.server.bench;
+
+import com.javacore.server.server.HttpParser;
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpRequestDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the one-shot HttpParser.parse(byte[]) with the incremental HttpRequestDecoder.
+ * Each operation parses the next request of the RequestCorpus (browser headers for every topic
+ * page, static asset and metrics request); packets splits each request into that many reads.
+ * The legacy path models the old read loop: copy the accumulator, rescan for the header end and
+ * parse once it is complete.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int packets;
+
+    private byte[][][] chunks;
+    private ByteBuffer[][] chunkBuffers;
+    private HttpRequestDecoder decoder;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<byte[]> requests = RequestCorpus.requests();
+        chunks = new byte[requests.size()][][];
+        chunkBuffers = new ByteBuffer[requests.size()][];
+        for (int r = 0; r < requests.size(); r++) {
+            byte[] request = requests.get(r);
+            chunks[r] = new byte[packets][];
+            chunkBuffers[r] = new ByteBuffer[packets];
+            int size = (request.length + packets - 1) / packets;
+            for (int i = 0; i < packets; i++) {
+                int from = Math.min(i * size, request.length);
+                int to = Math.min(from + size, request.length);
+                chunks[r][i] = Arrays.copyOfRange(request, from, to);
+                chunkBuffers[r][i] = ByteBuffer.wrap(chunks[r][i]);
+            }
+        }
+        decoder = new HttpRequestDecoder(64 * 1024);
+    }
+
+    @Benchmark
+    public HttpRequest legacyParse() throws HttpParser.HttpParseException {
+        ByteArrayOutputStream accumulator = new ByteArrayOutputStream();
+        for (byte[] chunk : chunks[nextRequest()]) {
+            accumulator.write(chunk, 0, chunk.length);
+            byte[] bytes = accumulator.toByteArray();
+            if (findHeaderEnd(bytes) >= 0) {
+                return HttpParser.parse(bytes);
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public HttpRequest incrementalDecoder() throws HttpParser.HttpParseException {
+        HttpRequest request = null;
+        for (ByteBuffer chunk : chunkBuffers[nextRequest()]) {
+            decoder.feed(chunk.clear());
+            request = decoder.next();
+        }
+        return request;
+    }
+
+    private int nextRequest() {
+        int index = next;
+        next = index + 1 == chunks.length ? 0 : index + 1;
+        return index;
+    }
+
+    private static int findHeaderEnd(byte[] bytes) {
+        for (int i = 0; i <= bytes.length - 4; i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n'
+                    && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+}
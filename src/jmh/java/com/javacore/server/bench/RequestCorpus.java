@@ -0,0 +1,125 @@
+package com.javacore.server.bench;
+
+import com.javacore.server.topic.JavaCoreTopic;
+import com.javacore.server.topic.TopicRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Requests a browser sends while reading the site: every registered topic page, the landing page,
+ * its static assets and the metrics endpoints, each with the headers a browser sends for that kind
+ * of request (navigation, stylesheet, script, image, fetch). Page navigations alternate between
+ * Chrome and Firefox, and every other one is a revalidation carrying If-None-Match.
+ */
+final class RequestCorpus {
+
+    private static final String HOST = "Host: localhost:9091\r\n";
+
+    private static final String CHROME = "sec-ch-ua: \"Chromium\";v=\"124\", \"Google Chrome\";v=\"124\", \"Not-A.Brand\";v=\"99\"\r\n"
+            + "sec-ch-ua-mobile: ?0\r\n"
+            + "sec-ch-ua-platform: \"Linux\"\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Chrome/124.0.0.0 Safari/537.36\r\n";
+
+    private static final String CHROME_NAVIGATION = HOST
+            + "Connection: keep-alive\r\n"
+            + CHROME
+            + "Upgrade-Insecure-Requests: 1\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,"
+            + "image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7\r\n"
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Sec-Fetch-Mode: navigate\r\n"
+            + "Sec-Fetch-User: ?1\r\n"
+            + "Sec-Fetch-Dest: document\r\n"
+            + "Referer: http://localhost:9091/\r\n"
+            + "Accept-Encoding: gzip, deflate, br, zstd\r\n"
+            + "Accept-Language: vi-VN,vi;q=0.9,en-US;q=0.8,en;q=0.7\r\n"
+            + "Cookie: theme=dark; _ga=GA1.1.123456789.1700000000\r\n";
+
+    private static final String FIREFOX_NAVIGATION = HOST
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:125.0) Gecko/20100101 Firefox/125.0\r\n"
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8\r\n"
+            + "Accept-Language: vi-VN,vi;q=0.8,en-US;q=0.5,en;q=0.3\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Referer: http://localhost:9091/\r\n"
+            + "Connection: keep-alive\r\n"
+            + "Cookie: theme=dark\r\n"
+            + "Upgrade-Insecure-Requests: 1\r\n"
+            + "Sec-Fetch-Dest: document\r\n"
+            + "Sec-Fetch-Mode: navigate\r\n"
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Sec-Fetch-User: ?1\r\n"
+            + "Priority: u=0, i\r\n";
+
+    private static final String CHROME_SUBRESOURCE = HOST
+            + "Connection: keep-alive\r\n"
+            + CHROME
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Sec-Fetch-Mode: no-cors\r\n"
+            + "Referer: http://localhost:9091/\r\n"
+            + "Accept-Encoding: gzip, deflate, br, zstd\r\n"
+            + "Accept-Language: vi-VN,vi;q=0.9,en-US;q=0.8,en;q=0.7\r\n"
+            + "Cookie: theme=dark; _ga=GA1.1.123456789.1700000000\r\n";
+
+    private static final String CHROME_FETCH = HOST
+            + "Connection: keep-alive\r\n"
+            + CHROME
+            + "Accept: */*\r\n"
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Sec-Fetch-Mode: cors\r\n"
+            + "Sec-Fetch-Dest: empty\r\n"
+            + "Referer: http://localhost:9091/\r\n"
+            + "Accept-Encoding: gzip, deflate, br, zstd\r\n"
+            + "Accept-Language: vi-VN,vi;q=0.9,en-US;q=0.8,en;q=0.7\r\n";
+
+    private RequestCorpus() {
+    }
+
+    /**
+     * Paths in the corpus: every topic page, then the landing page, static assets and metrics.
+     */
+    static List<String> paths() {
+        List<String> paths = new ArrayList<>();
+        for (JavaCoreTopic topic : TopicRegistry.getTopicsInDisplayOrder()) {
+            paths.add("/topics/" + topic.getSlug());
+        }
+        paths.add("/");
+        paths.add("/css/style.css");
+        paths.add("/js/landing.js");
+        paths.add("/favicon.svg");
+        paths.add("/api/metrics");
+        return paths;
+    }
+
+    /**
+     * One GET request per path, with browser headers for its kind.
+     */
+    static List<byte[]> requests() {
+        List<byte[]> requests = new ArrayList<>();
+        int navigations = 0;
+        for (String path : paths()) {
+            StringBuilder request = new StringBuilder("GET ").append(path).append(" HTTP/1.1\r\n");
+            if (path.equals("/") || path.startsWith("/topics/")) {
+                request.append(navigations % 2 == 0 ? CHROME_NAVIGATION : FIREFOX_NAVIGATION);
+                if (navigations % 4 >= 2) {
+                    request.append("If-None-Match: \"Xq3v9bB2kR1mT0aZ\"\r\n");
+                }
+                navigations++;
+            } else if (path.startsWith("/css/")) {
+                request.append(CHROME_SUBRESOURCE).append("Accept: text/css,*/*;q=0.1\r\nSec-Fetch-Dest: style\r\n");
+            } else if (path.startsWith("/js/")) {
+                request.append(CHROME_SUBRESOURCE).append("Accept: */*\r\nSec-Fetch-Dest: script\r\n");
+            } else if (path.endsWith(".svg")) {
+                request.append(CHROME_SUBRESOURCE)
+                        .append("Accept: image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8\r\n")
+                        .append("Sec-Fetch-Dest: image\r\n");
+            } else {
+                request.append(CHROME_FETCH);
+            }
+            requests.add(request.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return requests;
+    }
+}
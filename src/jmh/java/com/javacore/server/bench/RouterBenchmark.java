@@ -0,0 +1,70 @@
+package com.javacore.server.bench;
+
+import com.javacore.server.handler.HttpHandler;
+import com.javacore.server.server.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Router.match over the route table of Main.buildRouter (with no-op handlers). Each operation
+ * looks up the next path of the RequestCorpus; the corpus also holds an unknown path (404) and a
+ * POST to a GET-only route (405).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+    private Router router;
+    private String[] methods;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        HttpHandler handler = (req, res) -> { };
+        router = new Router();
+        router.add("GET", "/topics/{slug}", handler);
+        router.add("GET", "/api/metrics", handler);
+        router.add("GET", "/api/metrics/", handler);
+        router.add("GET", "/api/metrics/stream", handler);
+        router.add("GET", "/metrics", handler);
+        router.add("GET", "/css/{path*}", handler);
+        router.add("GET", "/js/{path*}", handler);
+        router.add("GET", "/favicon.svg", handler);
+        router.add("GET", "/", handler);
+
+        List<String> corpus = new ArrayList<>(RequestCorpus.paths());
+        corpus.add("/wp-login.php");
+        List<String> corpusMethods = new ArrayList<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            corpusMethods.add("GET");
+        }
+        corpus.add("/api/metrics");
+        corpusMethods.add("POST");
+        paths = corpus.toArray(String[]::new);
+        methods = corpusMethods.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public Router.RouteMatch match() {
+        int index = next;
+        next = index + 1 == paths.length ? 0 : index + 1;
+        return router.match(methods[index], paths[index]);
+    }
+}
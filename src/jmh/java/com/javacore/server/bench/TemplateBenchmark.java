@@ -0,0 +1,99 @@
+package com.javacore.server.bench;
+
+import com.javacore.server.topic.JavaCoreTopic;
+import com.javacore.server.topic.TopicRegistry;
+import com.javacore.server.util.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders each registered topic page with the old layout code (decode the reloaded layout, four
+ * String.replace passes, getBytes; the classpath read itself is left out) and with the compiled
+ * Template. The sidebar and breadcrumb are built the way TopicPageHandler builds them.
+ * Run with -prof gc to compare gc.alloc.rate.norm (bytes allocated per page).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+    private static final String LAYOUT_PATH = "web/topics/_layout.html";
+
+    @Param({"oop", "collections", "io-nio", "concurrency", "jvm-memory", "exception", "generics", "lambda"})
+    public String slug;
+
+    private String title;
+    private String topicsNav;
+    private String breadcrumb;
+    private String content;
+    private byte[] legacyLayout;
+    private Template layout;
+
+    @Setup
+    public void setUp() {
+        JavaCoreTopic topic = TopicRegistry.findBySlug(slug)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown topic " + slug));
+        title = topic.getTitle();
+        content = topic.getContentHtml();
+        StringBuilder nav = new StringBuilder("<nav class=\"topic-sidebar\"><ul>");
+        for (JavaCoreTopic each : TopicRegistry.getTopicsInDisplayOrder()) {
+            nav.append("<li><a href=\"/topics/").append(each.getSlug()).append('"')
+                    .append(each.getSlug().equals(slug) ? " class=\"topic-sidebar-link--active\"" : "")
+                    .append('>').append(Template.escapeHtml(each.getTitle())).append("</a></li>");
+        }
+        topicsNav = nav.append("</ul></nav>").toString();
+        int dash = title.indexOf(" - ");
+        breadcrumb = "<a href=\"/\">Trang ch&#7911;</a> / <a href=\"/topics/" + slug + "\">"
+                + Template.escapeHtml(dash > 0 ? title.substring(0, dash) : title) + "</a>";
+        layout = Template.load(getClass().getClassLoader(), LAYOUT_PATH);
+        legacyLayout = readResource(LAYOUT_PATH)
+                .replace("{{{", "{{")
+                .replace("}}}", "}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] stringReplace() {
+        String layoutSource = new String(legacyLayout, StandardCharsets.UTF_8);
+        String html = layoutSource.replace("{{title}}", title)
+                .replace("{{topicsNav}}", topicsNav)
+                .replace("{{content}}", content)
+                .replace("{{breadcrumb}}", breadcrumb);
+        return html.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] compiledTemplate() {
+        return layout.render(Map.of(
+                "title", title,
+                "topicsNav", topicsNav,
+                "breadcrumb", breadcrumb,
+                "content", content));
+    }
+
+    private String readResource(String path) {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
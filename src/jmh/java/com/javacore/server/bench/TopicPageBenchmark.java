@@ -0,0 +1,65 @@
+package com.javacore.server.bench;
+
+import com.javacore.server.handler.TopicPageHandler;
+import com.javacore.server.server.HttpParser;
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpRequestDecoder;
+import com.javacore.server.server.HttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TopicPageHandler.handle for each registered topic once its page is cached: the path a request
+ * takes after routing (registry lookup, encoding negotiation against the browser's
+ * Accept-Encoding, prebuilt response selection). The request is the topic's RequestCorpus entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicPageBenchmark {
+
+    @Param({"oop", "collections", "io-nio", "concurrency", "jvm-memory", "exception", "generics", "lambda"})
+    public String slug;
+
+    private TopicPageHandler handler;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws HttpParser.HttpParseException {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(64 * 1024);
+        for (byte[] bytes : RequestCorpus.requests()) {
+            decoder.feed(bytes, 0, bytes.length);
+            HttpRequest parsed = decoder.next();
+            if (parsed.path().equals("/topics/" + slug)) {
+                request = parsed.withPathParams(Map.of("slug", slug));
+            }
+        }
+        if (request == null) {
+            throw new IllegalArgumentException("No corpus request for topic " + slug);
+        }
+        handler = new TopicPageHandler();
+        servePage();
+    }
+
+    @Benchmark
+    public HttpResponse servePage() {
+        HttpResponse res = new HttpResponse();
+        handler.handle(request, res);
+        return res;
+    }
+}
@@ -0,0 +1,89 @@
+package com.javacore.server.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response head encoding on the three paths a Reactor takes: encodeHead into a pooled direct
+ * buffer (handler responses), encodeEntityHead (building a PrebuiltResponse on a cache miss) and
+ * sending a PrebuiltResponse (cache hit: head view plus connection tail).
+ * The responses carry the headers the server sends for a gzip topic page, a metrics poll and a 404.
+ * Lives in the server package because ResponseEncoder is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncoderBenchmark {
+
+    @Param({"topicPage", "metrics", "notFound"})
+    public String response;
+
+    private ResponseEncoder encoder;
+    private HttpResponse res;
+    private PrebuiltResponse prebuilt;
+    private ByteBuffer pooled;
+
+    @Setup
+    public void setUp() {
+        ServerConfig config = ServerConfig.defaults();
+        encoder = new ResponseEncoder(config);
+        pooled = ByteBuffer.allocateDirect(config.getBufferSize());
+        res = new HttpResponse();
+        switch (response) {
+            case "topicPage" -> {
+                res.setContentType("text/html; charset=utf-8");
+                res.setHeader("Content-Encoding", "gzip");
+                res.setHeader("Vary", "Accept-Encoding");
+                res.setHeader("ETag", "\"Xq3v9bB2kR1mT0aZ-gzip\"");
+                res.setHeader("Last-Modified", "Sat, 17 Oct 2026 08:30:00 GMT");
+                res.setHeader("Cache-Control", "no-cache");
+                res.setBody(new byte[9_000]);
+            }
+            case "metrics" -> {
+                res.setContentType("application/json; charset=utf-8");
+                res.setHeader("Cache-Control", "no-cache");
+                res.setBody(new byte[2_400]);
+            }
+            case "notFound" -> {
+                res.setStatusCode(404);
+                res.setBody("<h1>404 Not Found</h1>".getBytes(StandardCharsets.UTF_8));
+            }
+            default -> throw new IllegalArgumentException(response);
+        }
+        prebuilt = PrebuiltResponse.of(res);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeHead() {
+        return encoder.encodeHead(res, true, pooled);
+    }
+
+    @Benchmark
+    public byte[] encodeEntityHead() {
+        return ResponseEncoder.encodeEntityHead(res);
+    }
+
+    @Benchmark
+    public void sendPrebuilt(Blackhole blackhole) {
+        blackhole.consume(prebuilt.head());
+        blackhole.consume(encoder.connectionTail(true));
+        blackhole.consume(prebuilt.body());
+    }
+}
@@ -1,10 +1,17 @@
 package com.javacore.server;
 
 import com.javacore.server.handler.MetricsHandler;
+import com.javacore.server.handler.MetricsStreamHandler;
+import com.javacore.server.handler.PrometheusMetricsHandler;
+import com.javacore.server.handler.StaticAssetCache;
 import com.javacore.server.handler.StaticFileHandler;
 import com.javacore.server.handler.TopicPageHandler;
 import com.javacore.server.server.NioServer;
 import com.javacore.server.server.Router;
+import com.javacore.server.server.ServerConfig;
+import com.javacore.server.server.ServerMetrics;
+import com.javacore.server.topic.FragmentStore;
+import com.javacore.server.topic.TopicRegistry;
 
 import java.io.IOException;
 
@@ -18,12 +25,18 @@ public final class Main {
 
     public static void main(String[] args) {
         int port = parsePort(args);
-        Router router = buildRouter();
+        ServerConfig config = ServerConfig.fromSystemProperties();
+        ServerMetrics metrics = new ServerMetrics();
+        StaticAssetCache staticCache = new StaticAssetCache(config.getStaticCacheMaxBytes());
+        MetricsHandler metricsHandler = new MetricsHandler(staticCache, metrics, config.getMetricsIntervalMillis());
+        Router router = buildRouter(config, staticCache, metricsHandler);
 
-        NioServer server = new NioServer(port, router);
+        NioServer server = new NioServer(port, router, config, metrics);
+        metricsHandler.start();
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("Shutting down...");
+            metricsHandler.stop();
             server.stop();
             try {
                 server.close();
@@ -50,13 +63,36 @@ public final class Main {
         return DEFAULT_PORT;
     }
 
-    private static Router buildRouter() {
+    /**
+     * Points the FragmentStore at the document root and, unless disabled, starts loading every
+     * topic fragment in the background so the first page request does not pay for the reads.
+     */
+    private static void loadFragments(ServerConfig config) {
+        FragmentStore fragments = FragmentStore.shared();
+        fragments.setDocumentRoot(config.getDocumentRoot());
+        if (!config.isPreloadFragments()) {
+            return;
+        }
+        long start = System.nanoTime();
+        fragments.preload(TopicRegistry.getAll()).thenAccept(bytes -> System.out.printf(
+                "Preloaded %d topic fragments (%d KB) in %d ms%n",
+                fragments.size(), bytes / 1024, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private static Router buildRouter(ServerConfig config, StaticAssetCache staticCache, MetricsHandler metrics) {
+        StaticFileHandler staticFiles = new StaticFileHandler(staticCache, config.getDocumentRoot());
+        loadFragments(config);
+
         Router router = new Router();
-        router.addRoute("/topics/", new TopicPageHandler());
-        router.addRoute("/api/", new MetricsHandler());
-        router.addRoute("/css/", new StaticFileHandler());
-        router.addRoute("/js/", new StaticFileHandler());
-        router.addRoute("/", new StaticFileHandler());
+        router.add("GET", "/topics/{slug}", new TopicPageHandler(config.getDocumentRoot()));
+        router.add("GET", "/api/metrics", metrics);
+        router.add("GET", "/api/metrics/", metrics);
+        router.add("GET", "/api/metrics/stream", new MetricsStreamHandler(metrics));
+        router.add("GET", "/metrics", new PrometheusMetricsHandler(metrics));
+        router.add("GET", "/css/{path*}", staticFiles);
+        router.add("GET", "/js/{path*}", staticFiles);
+        router.add("GET", "/favicon.svg", staticFiles);
+        router.add("GET", "/", staticFiles);
         return router;
     }
 }
@@ -0,0 +1,192 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.ByteRanges;
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.PrebuiltResponse;
+import com.javacore.server.server.Validators;
+import com.javacore.server.util.ContentEncoding;
+import com.javacore.server.util.ContentEncoding.Coding;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * A static file prepared for sending: prebuilt identity response plus gzip and deflate variants
+ * for compressible types. Variants are compressed once, when the asset is built, and only kept
+ * when they are smaller than the original. Each variant carries its own strong ETag, derived
+ * from the content hash computed once here. Range requests are served as slices of the
+ * selected variant's body.
+ */
+public final class CachedAsset {
+
+    private final String contentType;
+    private final long lastModified;
+    private final long sourceSize;
+    private final Variant identity;
+    private final Variant gzip;
+    private final Variant deflate;
+
+    private CachedAsset(String contentType, long lastModified, long sourceSize,
+                        Variant identity, Variant gzip, Variant deflate) {
+        this.contentType = contentType;
+        this.lastModified = lastModified;
+        this.sourceSize = sourceSize;
+        this.identity = identity;
+        this.gzip = gzip;
+        this.deflate = deflate;
+    }
+
+    /**
+     * @param lastModified epoch millis of the source file
+     */
+    public static CachedAsset build(byte[] body, String contentType, long lastModified) {
+        boolean compressible = ContentEncoding.shouldCompress(contentType, body.length);
+        String hash = Validators.contentHash(body);
+        Variant identity = prebuild(body, contentType, Coding.IDENTITY, hash, lastModified, compressible);
+        if (!compressible) {
+            return new CachedAsset(contentType, lastModified, body.length, identity, null, null);
+        }
+        return new CachedAsset(contentType, lastModified, body.length, identity,
+                variant(body, contentType, Coding.GZIP, hash, lastModified),
+                variant(body, contentType, Coding.DEFLATE, hash, lastModified));
+    }
+
+    /**
+     * Answers with a file that will not be cached: only the coding the request negotiated is
+     * compressed, at the default (faster) level, and the response is built on the heap instead
+     * of being prebuilt into the OffHeapStore.
+     *
+     * @param lastModified epoch millis of the source file
+     */
+    public static void sendOnce(HttpRequest req, HttpResponse res, byte[] body, String contentType,
+                                long lastModified) {
+        boolean compressible = ContentEncoding.shouldCompress(contentType, body.length);
+        Coding coding = compressible ? ContentEncoding.negotiate(req.getHeader("Accept-Encoding")) : Coding.IDENTITY;
+        byte[] encoded = ContentEncoding.encode(body, coding, Deflater.DEFAULT_COMPRESSION);
+        if (encoded.length >= body.length) {
+            coding = Coding.IDENTITY;
+            encoded = body;
+        }
+        Validators validators = sizeValidators(body.length, lastModified, coding, compressible);
+        if (ByteRanges.respond(req, res, ByteBuffer.wrap(encoded).asReadOnlyBuffer(), contentType,
+                coding.token(), validators)) {
+            return;
+        }
+        res.setContentType(contentType);
+        if (coding.token() != null) {
+            res.setHeader("Content-Encoding", coding.token());
+        }
+        validators.applyTo(res);
+        res.setHeader("Accept-Ranges", "bytes");
+        res.setBody(encoded);
+    }
+
+    /**
+     * Validators sendOnce attaches for a file of this size, type and modification time, computed
+     * from metadata alone so a revalidation is answered without reading the file.
+     */
+    static Validators onceValidators(long size, String contentType, long lastModified, String acceptEncoding) {
+        boolean compressible = size <= Integer.MAX_VALUE && ContentEncoding.shouldCompress(contentType, (int) size);
+        Coding coding = compressible ? ContentEncoding.negotiate(acceptEncoding) : Coding.IDENTITY;
+        return sizeValidators(size, lastModified, coding, compressible);
+    }
+
+    /**
+     * Validators for a file that is not cached: hashing it on every request would cost a full read,
+     * so the ETag is built from size and modification time (plus the coding suffix).
+     */
+    static Validators sizeValidators(long size, long lastModified, Coding coding, boolean vary) {
+        String tag = Long.toHexString(size) + "-" + Long.toHexString(lastModified);
+        return new Validators(Validators.strongEtag(tag, coding.etagSuffix()), lastModified, Validators.NO_CACHE, vary);
+    }
+
+    /**
+     * Best variant for the request's Accept-Encoding header.
+     */
+    public PrebuiltResponse select(String acceptEncoding) {
+        return selectVariant(acceptEncoding).response;
+    }
+
+    /**
+     * Validators of the variant select() would return.
+     */
+    public Validators validators(String acceptEncoding) {
+        return selectVariant(acceptEncoding).validators;
+    }
+
+    /**
+     * Puts the variant matching the request into res, or a 206 / 416 for a Range request.
+     */
+    public void send(HttpRequest req, HttpResponse res) {
+        if (!respondToRange(req, res)) {
+            res.setPrebuilt(select(req.getHeader("Accept-Encoding")));
+        }
+    }
+
+    /**
+     * Answers a Range request with a 206 (or 416) built from slices of the selected variant.
+     *
+     * @return false if the request has no applicable Range; send select() instead
+     */
+    public boolean respondToRange(HttpRequest req, HttpResponse res) {
+        if (req.getHeader("Range") == null) {
+            return false;
+        }
+        Variant variant = selectVariant(req.getHeader("Accept-Encoding"));
+        return ByteRanges.respond(req, res, variant.response.body(), contentType,
+                variant.coding.token(), variant.validators);
+    }
+
+    /**
+     * Whether this asset was built from a file with the given modification time and size.
+     */
+    public boolean isCurrent(long lastModified, long sourceSize) {
+        return this.lastModified == lastModified && this.sourceSize == sourceSize;
+    }
+
+    /**
+     * Summed size of all variants in bytes.
+     */
+    public int size() {
+        return identity.response.size()
+                + (gzip != null ? gzip.response.size() : 0)
+                + (deflate != null ? deflate.response.size() : 0);
+    }
+
+    private Variant selectVariant(String acceptEncoding) {
+        if (gzip == null && deflate == null) {
+            return identity;
+        }
+        return switch (ContentEncoding.negotiate(acceptEncoding)) {
+            case GZIP -> gzip != null ? gzip : identity;
+            case DEFLATE -> deflate != null ? deflate : identity;
+            case IDENTITY -> identity;
+        };
+    }
+
+    private static Variant variant(byte[] body, String contentType, Coding coding, String hash, long lastModified) {
+        byte[] encoded = ContentEncoding.encode(body, coding, Deflater.BEST_COMPRESSION);
+        return encoded.length < body.length
+                ? prebuild(encoded, contentType, coding, hash, lastModified, true)
+                : null;
+    }
+
+    private static Variant prebuild(byte[] body, String contentType, Coding coding, String hash,
+                                    long lastModified, boolean vary) {
+        Validators validators = new Validators(
+                Validators.strongEtag(hash, coding.etagSuffix()), lastModified, Validators.NO_CACHE, vary);
+        HttpResponse res = new HttpResponse();
+        res.setContentType(contentType);
+        if (coding.token() != null) {
+            res.setHeader("Content-Encoding", coding.token());
+        }
+        validators.applyTo(res);
+        res.setHeader("Accept-Ranges", "bytes");
+        res.setBody(body);
+        return new Variant(PrebuiltResponse.of(res), validators, coding);
+    }
+
+    private record Variant(PrebuiltResponse response, Validators validators, Coding coding) {
+    }
+}
@@ -2,6 +2,7 @@ package com.javacore.server.handler;
 
 import com.javacore.server.server.HttpRequest;
 import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.Validators;
 
 /**
  * Handler for HTTP requests. Implementations process request and populate response.
@@ -10,4 +11,14 @@ import com.javacore.server.server.HttpResponse;
 public interface HttpHandler {
 
     void handle(HttpRequest req, HttpResponse res);
+
+    /**
+     * Validators of the representation handle() would produce, if known without rendering it.
+     * When a conditional request matches them, the server answers 304 and handle() is skipped.
+     *
+     * @return validators, or null if unknown (the handler always runs)
+     */
+    default Validators validators(HttpRequest req) {
+        return null;
+    }
 }
@@ -2,41 +2,222 @@ package com.javacore.server.handler;
 
 import com.javacore.server.server.HttpRequest;
 import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.LatencyHistogram;
+import com.javacore.server.server.OffHeapStore;
+import com.javacore.server.server.RouteMetrics;
+import com.javacore.server.server.ServerMetrics;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryMXBean;
-import java.lang.management.ThreadMXBean;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Serves JVM metrics as JSON for the Live Metrics dashboard.
+ * Serves JVM and server metrics as JSON for the Live Metrics dashboard: heap, threads, GC per
+ * collector, buffer pools and class loading, plus static asset cache counters when a cache is given.
+ * With ServerMetrics it adds connection and byte counters with rates, allocation per server thread,
+ * and per-route request counts and latency percentiles (microseconds, over the RouteMetrics window).
+ * <p>
+ * A MetricsSampler thread reads one MetricsSnapshot per interval and encodes it as JSON and as
+ * Prometheus text; requests are answered with a view of the latest encoding, so polling and scraping
+ * do no sampling or formatting. The same snapshots feed /api/metrics/stream and /metrics.
+ * The thread runs between start() and stop(); until the first sample, requests sample synchronously.
  */
 public class MetricsHandler implements HttpHandler {
 
+    private static final long DEFAULT_INTERVAL_MILLIS = 1_000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final StaticAssetCache staticCache;
+    private final ServerMetrics serverMetrics;
+    private final RuntimeStats runtimeStats;
+    private final MetricsSampler sampler;
+    private final StringBuilder json = new StringBuilder(4096);
+    private final PrometheusFormat prometheus = new PrometheusFormat();
+
+    public MetricsHandler() {
+        this(null, null);
+    }
+
+    public MetricsHandler(StaticAssetCache staticCache) {
+        this(staticCache, null);
+    }
+
+    public MetricsHandler(StaticAssetCache staticCache, ServerMetrics serverMetrics) {
+        this(staticCache, serverMetrics, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param serverMetrics  counters of the running server, or null
+     * @param intervalMillis time between samples
+     */
+    public MetricsHandler(StaticAssetCache staticCache, ServerMetrics serverMetrics, long intervalMillis) {
+        this.staticCache = staticCache;
+        this.serverMetrics = serverMetrics;
+        this.runtimeStats = new RuntimeStats(serverMetrics);
+        this.sampler = new MetricsSampler(this::sample, intervalMillis);
+    }
+
+    /**
+     * Starts sampling in the background.
+     */
+    public void start() {
+        sampler.start();
+    }
+
+    /**
+     * Stops the background sampling thread.
+     */
+    public void stop() {
+        sampler.stop();
+    }
+
     @Override
     public void handle(HttpRequest req, HttpResponse res) {
-        String path = req.getPathForRouting();
-        String normalized = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
-        if (!"/api/metrics".equals(normalized)) {
-            res.setStatusCode(404);
-            res.setBody("<h1>404 Not Found</h1>");
+        res.setContentType("application/json; charset=utf-8");
+        res.setHeader("Cache-Control", "no-cache");
+        res.setBodyBuffers(sampler.latestJson());
+    }
+
+    MetricsSampler sampler() {
+        return sampler;
+    }
+
+    /**
+     * Samples the metrics and encodes them. Runs on the sampler thread (or, before the first tick,
+     * on a request thread).
+     */
+    private synchronized MetricsSampler.Encoded sample() {
+        MetricsSnapshot snapshot = snapshot();
+        return new MetricsSampler.Encoded(encodeJson(snapshot), prometheus.encode(snapshot));
+    }
+
+    private MetricsSnapshot snapshot() {
+        RuntimeStats.Sample sample = runtimeStats.collect();
+        StaticAssetCache.Stats cacheStats = staticCache != null ? staticCache.stats() : null;
+        OffHeapStore offHeap = OffHeapStore.shared();
+        Map<String, MetricsSnapshot.Route> routes = new TreeMap<>();
+        long windowMillis = 0;
+        if (serverMetrics != null) {
+            RouteMetrics routeMetrics = serverMetrics.routes();
+            windowMillis = routeMetrics.getWindowMillis();
+            for (Map.Entry<String, RouteMetrics.RouteStats> route : routeMetrics.routes().entrySet()) {
+                RouteMetrics.RouteStats stats = route.getValue();
+                routes.put(route.getKey(), new MetricsSnapshot.Route(
+                        stats.parse().snapshot(), stats.handler().snapshot(), stats.write().snapshot()));
+            }
+        }
+        return new MetricsSnapshot(sample, cacheStats, offHeap.slabCount(), offHeap.liveBytes(), windowMillis, routes);
+    }
+
+    private byte[] encodeJson(MetricsSnapshot snapshot) {
+        RuntimeStats.Sample sample = snapshot.runtime();
+        json.setLength(0);
+        json.append("{\"sampledAt\":").append(sample.sampledAt())
+                .append(",\"heapUsed\":").append(sample.heapUsed())
+                .append(",\"heapMax\":").append(sample.heapMax())
+                .append(",\"threadCount\":").append(sample.threadCount());
+        appendRuntime(json, sample);
+        appendStaticCache(json, snapshot);
+        if (sample.server() != null) {
+            appendServer(json, sample.server());
+            appendRoutes(json, snapshot);
+        }
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendRuntime(StringBuilder json, RuntimeStats.Sample sample) {
+        json.append(",\"gc\":[");
+        List<RuntimeStats.Collector> gc = sample.gc();
+        for (int i = 0; i < gc.size(); i++) {
+            RuntimeStats.Collector collector = gc.get(i);
+            json.append(i > 0 ? ",{" : "{").append("\"name\":\"").append(escapeJson(collector.name()))
+                    .append("\",\"count\":").append(collector.count())
+                    .append(",\"timeMs\":").append(collector.timeMillis()).append('}');
+        }
+        json.append("],\"bufferPools\":[");
+        List<RuntimeStats.BufferPool> pools = sample.bufferPools();
+        for (int i = 0; i < pools.size(); i++) {
+            RuntimeStats.BufferPool pool = pools.get(i);
+            json.append(i > 0 ? ",{" : "{").append("\"name\":\"").append(escapeJson(pool.name()))
+                    .append("\",\"count\":").append(pool.count())
+                    .append(",\"used\":").append(pool.used())
+                    .append(",\"capacity\":").append(pool.capacity()).append('}');
+        }
+        RuntimeStats.Classes classes = sample.classes();
+        json.append("],\"classes\":{\"loaded\":").append(classes.loaded())
+                .append(",\"totalLoaded\":").append(classes.totalLoaded())
+                .append(",\"unloaded\":").append(classes.unloaded()).append('}');
+    }
+
+    /**
+     * ,"server":{"openConnections":..,..,"threads":[{"name":"nio-worker-0","allocatedBytes":..,
+     * "allocatedBytesPerSec":..}]}
+     */
+    private static void appendServer(StringBuilder json, RuntimeStats.Server server) {
+        json.append(",\"server\":{\"openConnections\":").append(server.openConnections())
+                .append(",\"accepted\":").append(server.accepted())
+                .append(",\"acceptedPerSec\":").append(server.acceptedPerSecond())
+                .append(",\"bytesIn\":").append(server.bytesIn())
+                .append(",\"bytesInPerSec\":").append(server.bytesInPerSecond())
+                .append(",\"bytesOut\":").append(server.bytesOut())
+                .append(",\"bytesOutPerSec\":").append(server.bytesOutPerSecond())
+                .append(",\"threads\":[");
+        List<RuntimeStats.ThreadAllocation> threads = server.threads();
+        for (int i = 0; i < threads.size(); i++) {
+            RuntimeStats.ThreadAllocation thread = threads.get(i);
+            json.append(i > 0 ? ",{" : "{").append("\"name\":\"").append(escapeJson(thread.name()))
+                    .append("\",\"allocatedBytes\":").append(thread.allocatedBytes())
+                    .append(",\"allocatedBytesPerSec\":").append(thread.bytesPerSecond()).append('}');
+        }
+        json.append("]}");
+    }
+
+    private static void appendStaticCache(StringBuilder json, MetricsSnapshot snapshot) {
+        StaticAssetCache.Stats stats = snapshot.staticCache();
+        if (stats == null) {
             return;
         }
-        res.setContentType("application/json; charset=utf-8");
+        json.append(",\"staticCache\":{\"hits\":").append(stats.hits())
+                .append(",\"misses\":").append(stats.misses())
+                .append(",\"evictions\":").append(stats.evictions())
+                .append(",\"entries\":").append(stats.entries())
+                .append(",\"bytes\":").append(stats.bytes())
+                .append(",\"offHeapSlabs\":").append(snapshot.offHeapSlabs())
+                .append(",\"offHeapLiveBytes\":").append(snapshot.offHeapLiveBytes())
+                .append('}');
+    }
 
-        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
-        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    /**
+     * ,"routeWindowSeconds":60,"routes":{"/topics/{slug}":{"count":..,"parse":{..},"handler":{..},"write":{..}}}
+     * where count is the number of requests handled in the window.
+     */
+    private static void appendRoutes(StringBuilder json, MetricsSnapshot snapshot) {
+        json.append(",\"routeWindowSeconds\":").append(snapshot.routeWindowMillis() / 1000)
+                .append(",\"routes\":{");
+        String separator = "";
+        for (Map.Entry<String, MetricsSnapshot.Route> route : snapshot.routes().entrySet()) {
+            MetricsSnapshot.Route stats = route.getValue();
+            json.append(separator).append('"').append(escapeJson(route.getKey())).append("\":{\"count\":").append(stats.handler().count());
+            appendLatency(json, "parse", stats.parse());
+            appendLatency(json, "handler", stats.handler());
+            appendLatency(json, "write", stats.write());
+            json.append('}');
+            separator = ",";
+        }
+        json.append('}');
+    }
 
-        long heapUsed = memory.getHeapMemoryUsage().getUsed();
-        long heapMax = memory.getHeapMemoryUsage().getMax() > 0
-                ? memory.getHeapMemoryUsage().getMax()
-                : memory.getHeapMemoryUsage().getCommitted();
-        int threadCount = threads.getThreadCount();
+    private static void appendLatency(StringBuilder json, String name, LatencyHistogram.Snapshot snapshot) {
+        json.append(",\"").append(name).append("\":{");
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            json.append('"').append(PERCENTILE_NAMES[i]).append("\":").append(snapshot.valueAt(PERCENTILES[i])).append(',');
+        }
+        json.append("\"max\":").append(snapshot.max()).append('}');
+    }
 
-        String json = String.format(
-                "{\"heapUsed\":%d,\"heapMax\":%d,\"threadCount\":%d}",
-                heapUsed, heapMax, threadCount
-        );
-        res.setBody(json.getBytes(StandardCharsets.UTF_8));
+    private static String escapeJson(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
     }
 }
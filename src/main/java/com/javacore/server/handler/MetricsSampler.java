@@ -0,0 +1,187 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.BodyStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Samples metrics on one background thread at a fixed interval, keeps the latest sample encoded,
+ * and fans each sample out to server-sent event subscribers.
+ * <p>
+ * Each tick encodes one "data: {json}" event into a read-only buffer; the JSON alone is a slice of
+ * it. The Prometheus text of the same sample is kept next to it. Requests for either encoding and
+ * every subscriber send a duplicate of those buffers, so any number of pollers, scrapers and open
+ * dashboards cost one sample and one encoding per tick.
+ * Subscribers only ever hold the latest event (a lagging one skips ahead), and one that has not
+ * taken an event for MAX_MISSED_TICKS ticks is dropped.
+ */
+final class MetricsSampler {
+
+    private static final int MAX_MISSED_TICKS = 3;
+    private static final byte[] DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Supplier<Encoded> source;
+    private final long intervalMillis;
+    private final ByteBuffer prelude;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile ScheduledExecutorService scheduler;
+    private volatile Event latest;
+
+    /**
+     * @param source produces one sample in both encodings
+     */
+    MetricsSampler(Supplier<Encoded> source, long intervalMillis) {
+        this.source = source;
+        this.intervalMillis = intervalMillis;
+        // Reconnecting clients wait about one interval rather than the browser default of 3 s.
+        this.prelude = ByteBuffer.wrap(("retry: " + intervalMillis + "\n\n").getBytes(StandardCharsets.US_ASCII))
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * Opens an event stream that receives every sample from now on, starting with the latest.
+     */
+    BodyStream subscribe() {
+        Subscriber subscriber = new Subscriber(latest);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Latest sample as JSON, read-only. Samples synchronously only if the first tick has not run yet.
+     */
+    ByteBuffer latestJson() {
+        Event event = latest;
+        return event != null ? event.json.duplicate() : ByteBuffer.wrap(source.get().json()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Latest sample as Prometheus text, read-only. Samples synchronously only if the first tick has not run yet.
+     */
+    ByteBuffer latestText() {
+        Event event = latest;
+        return event != null ? event.text.duplicate() : ByteBuffer.wrap(source.get().text()).asReadOnlyBuffer();
+    }
+
+    /**
+     * Starts the sampler thread; the first sample is taken right away. Does nothing once started.
+     */
+    void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    /**
+     * Stops the sampler thread. Requests keep getting the last sample; open streams get no more events.
+     */
+    void stop() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void tick() {
+        Encoded encoded;
+        try {
+            encoded = source.get();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule; skip this tick instead.
+            System.err.println("Metrics sample failed: " + e);
+            return;
+        }
+        byte[] json = encoded.json();
+        ByteBuffer event = ByteBuffer.allocate(DATA.length + json.length + EVENT_END.length)
+                .put(DATA).put(json).put(EVENT_END).flip().asReadOnlyBuffer();
+        ByteBuffer jsonView = event.duplicate().position(DATA.length).limit(DATA.length + json.length).slice();
+        Event previous = latest;
+        long sequence = previous != null ? previous.sequence + 1 : 1;
+        latest = new Event(sequence, event, jsonView, ByteBuffer.wrap(encoded.text()).asReadOnlyBuffer());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.publish(sequence);
+        }
+    }
+
+    /**
+     * One sample, encoded.
+     *
+     * @param json UTF-8 JSON on a single line
+     * @param text Prometheus text exposition format
+     */
+    record Encoded(byte[] json, byte[] text) {
+    }
+
+    private record Event(long sequence, ByteBuffer buffer, ByteBuffer json, ByteBuffer text) {
+    }
+
+    /**
+     * One open stream. next() runs on the connection's reactor thread, publish() on the sampler.
+     */
+    private final class Subscriber implements BodyStream {
+        private volatile Runnable resume;
+        private volatile long sentSequence;
+        private volatile boolean dropped;
+        private boolean preludeSent;
+
+        Subscriber(Event current) {
+            this.sentSequence = current != null ? current.sequence - 1 : 0;
+        }
+
+        @Override
+        public ByteBuffer next() throws IOException {
+            if (dropped) {
+                throw new IOException("Metrics subscriber too slow, dropped");
+            }
+            if (!preludeSent) {
+                preludeSent = true;
+                return prelude.duplicate();
+            }
+            Event event = latest;
+            if (event == null || event.sequence == sentSequence) {
+                return NOT_READY;
+            }
+            sentSequence = event.sequence;
+            return event.buffer.duplicate();
+        }
+
+        @Override
+        public void setResumeCallback(Runnable resume) {
+            this.resume = resume;
+        }
+
+        void publish(long sequence) {
+            if (sequence - sentSequence > MAX_MISSED_TICKS) {
+                dropped = true;
+                subscribers.remove(this);
+            }
+            Runnable callback = resume;
+            if (callback != null) {
+                callback.run();
+            }
+        }
+
+        @Override
+        public void close() {
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.LatencyHistogram;
+
+import java.util.Map;
+
+/**
+ * Everything one metrics sample reports. Read once per sampler tick and encoded both as JSON
+ * (/api/metrics, /api/metrics/stream) and as Prometheus text (/metrics).
+ *
+ * @param staticCache       null when no StaticAssetCache was given
+ * @param routeWindowMillis window the route latency percentiles cover
+ * @param routes            latencies by route pattern, sorted; empty without ServerMetrics
+ */
+record MetricsSnapshot(RuntimeStats.Sample runtime, StaticAssetCache.Stats staticCache, long offHeapSlabs,
+                       long offHeapLiveBytes, long routeWindowMillis, Map<String, Route> routes) {
+
+    record Route(LatencyHistogram.Snapshot parse, LatencyHistogram.Snapshot handler,
+                 LatencyHistogram.Snapshot write) {
+    }
+}
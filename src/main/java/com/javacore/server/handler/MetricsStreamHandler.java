@@ -0,0 +1,28 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+
+/**
+ * Handles /api/metrics/stream - pushes the metrics JSON as server-sent events, one event per
+ * sampler tick. All connections share the MetricsHandler's sampler, so the JVM is sampled once per
+ * tick however many dashboards are open.
+ */
+public class MetricsStreamHandler implements HttpHandler {
+
+    private final MetricsSampler sampler;
+
+    /**
+     * @param metrics handler whose sampler produces the events
+     */
+    public MetricsStreamHandler(MetricsHandler metrics) {
+        this.sampler = metrics.sampler();
+    }
+
+    @Override
+    public void handle(HttpRequest req, HttpResponse res) {
+        res.setContentType("text/event-stream; charset=utf-8");
+        res.setHeader("Cache-Control", "no-cache");
+        res.setBodyStream(sampler.subscribe());
+    }
+}
@@ -0,0 +1,151 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.LatencyHistogram;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Encodes a MetricsSnapshot in the Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Route latencies are summaries per route and phase: quantiles over the RouteMetrics window, with
+ * cumulative _sum and _count so rate() works. Counters end in _total; sizes are in bytes and
+ * durations in seconds. The text is built in one StringBuilder reused across samples.
+ * Not thread-safe; used by the sampler thread.
+ */
+final class PrometheusFormat {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] PHASES = {"parse", "handler", "write"};
+
+    private final StringBuilder text = new StringBuilder(8192);
+
+    byte[] encode(MetricsSnapshot snapshot) {
+        text.setLength(0);
+        RuntimeStats.Sample runtime = snapshot.runtime();
+
+        gauge("jvm_memory_heap_used_bytes", "Used heap memory.", runtime.heapUsed());
+        gauge("jvm_memory_heap_max_bytes", "Max heap memory (committed when undefined).", runtime.heapMax());
+        gauge("jvm_threads_live", "Live JVM threads.", runtime.threadCount());
+
+        header("jvm_gc_collections_total", "counter", "Garbage collections by collector.");
+        for (RuntimeStats.Collector collector : runtime.gc()) {
+            sample("jvm_gc_collections_total", "gc", collector.name(), collector.count());
+        }
+        header("jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector.");
+        for (RuntimeStats.Collector collector : runtime.gc()) {
+            sample("jvm_gc_collection_seconds_total", "gc", collector.name(), collector.timeMillis() / 1000.0);
+        }
+
+        header("jvm_buffer_pool_buffers", "gauge", "Buffers in the pool.");
+        for (RuntimeStats.BufferPool pool : runtime.bufferPools()) {
+            sample("jvm_buffer_pool_buffers", "pool", pool.name(), pool.count());
+        }
+        header("jvm_buffer_pool_used_bytes", "gauge", "Memory used by the pool.");
+        for (RuntimeStats.BufferPool pool : runtime.bufferPools()) {
+            sample("jvm_buffer_pool_used_bytes", "pool", pool.name(), pool.used());
+        }
+        header("jvm_buffer_pool_capacity_bytes", "gauge", "Total capacity of the buffers in the pool.");
+        for (RuntimeStats.BufferPool pool : runtime.bufferPools()) {
+            sample("jvm_buffer_pool_capacity_bytes", "pool", pool.name(), pool.capacity());
+        }
+
+        gauge("jvm_classes_currently_loaded", "Classes currently loaded.", runtime.classes().loaded());
+        counter("jvm_classes_loaded_total", "Classes loaded since JVM start.", runtime.classes().totalLoaded());
+        counter("jvm_classes_unloaded_total", "Classes unloaded since JVM start.", runtime.classes().unloaded());
+
+        StaticAssetCache.Stats cache = snapshot.staticCache();
+        if (cache != null) {
+            counter("static_cache_hits_total", "Static asset cache hits.", cache.hits());
+            counter("static_cache_misses_total", "Static asset cache misses.", cache.misses());
+            counter("static_cache_evictions_total", "Static asset cache evictions.", cache.evictions());
+            gauge("static_cache_entries", "Cached static assets.", cache.entries());
+            gauge("static_cache_bytes", "Size of the cached static assets.", cache.bytes());
+            gauge("offheap_store_slabs", "Off-heap slabs holding prebuilt responses.", snapshot.offHeapSlabs());
+            gauge("offheap_store_live_bytes", "Bytes of prebuilt responses still held off-heap.", snapshot.offHeapLiveBytes());
+        }
+
+        RuntimeStats.Server server = runtime.server();
+        if (server != null) {
+            gauge("http_server_connections_open", "Open client connections.", server.openConnections());
+            counter("http_server_connections_accepted_total", "Accepted client connections.", server.accepted());
+            counter("http_server_received_bytes_total", "Bytes read from clients.", server.bytesIn());
+            counter("http_server_sent_bytes_total", "Bytes written to clients.", server.bytesOut());
+            header("http_server_thread_allocated_bytes_total", "counter", "Heap bytes allocated by each server thread.");
+            for (RuntimeStats.ThreadAllocation thread : server.threads()) {
+                sample("http_server_thread_allocated_bytes_total", "thread", thread.name(), thread.allocatedBytes());
+            }
+        }
+
+        if (!snapshot.routes().isEmpty()) {
+            appendRoutes(snapshot);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void appendRoutes(MetricsSnapshot snapshot) {
+        String name = "http_server_request_phase_seconds";
+        header(name, "summary", "Request latency by route and phase (parse, handler, write); quantiles over the last "
+                + snapshot.routeWindowMillis() / 1000 + " s.");
+        for (Map.Entry<String, MetricsSnapshot.Route> route : snapshot.routes().entrySet()) {
+            MetricsSnapshot.Route phases = route.getValue();
+            LatencyHistogram.Snapshot[] histograms = {phases.parse(), phases.handler(), phases.write()};
+            for (int i = 0; i < PHASES.length; i++) {
+                LatencyHistogram.Snapshot histogram = histograms[i];
+                for (double quantile : QUANTILES) {
+                    labels(name, route.getKey(), PHASES[i]).append(",quantile=\"").append(quantile).append("\"} ")
+                            .append(histogram.valueAt(quantile * 100) / 1e6).append('\n');
+                }
+                labels(name + "_sum", route.getKey(), PHASES[i]).append("} ")
+                        .append(histogram.totalMicros() / 1e6).append('\n');
+                labels(name + "_count", route.getKey(), PHASES[i]).append("} ")
+                        .append(histogram.totalCount()).append('\n');
+            }
+        }
+    }
+
+    private StringBuilder labels(String name, String route, String phase) {
+        text.append(name).append("{route=\"");
+        escapeLabel(route);
+        return text.append("\",phase=\"").append(phase).append('"');
+    }
+
+    private void gauge(String name, String help, long value) {
+        header(name, "gauge", help);
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private void counter(String name, String help, long value) {
+        header(name, "counter", help);
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private void header(String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String label, String labelValue, long value) {
+        text.append(name).append('{').append(label).append("=\"");
+        escapeLabel(labelValue);
+        text.append("\"} ").append(value).append('\n');
+    }
+
+    private void sample(String name, String label, String labelValue, double value) {
+        text.append(name).append('{').append(label).append("=\"");
+        escapeLabel(labelValue);
+        text.append("\"} ").append(value).append('\n');
+    }
+
+    private void escapeLabel(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> text.append("\\\\");
+                case '"' -> text.append("\\\"");
+                case '\n' -> text.append("\\n");
+                default -> text.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+
+/**
+ * Handles /metrics - the same metrics as /api/metrics in the Prometheus text exposition format.
+ * Shares the MetricsHandler's sampler; a scrape is answered with a view of the text encoded on the
+ * latest tick, so scrapes allocate no formatting buffers.
+ */
+public class PrometheusMetricsHandler implements HttpHandler {
+
+    private final MetricsSampler sampler;
+
+    /**
+     * @param metrics handler whose sampler encodes the metrics
+     */
+    public PrometheusMetricsHandler(MetricsHandler metrics) {
+        this.sampler = metrics.sampler();
+    }
+
+    @Override
+    public void handle(HttpRequest req, HttpResponse res) {
+        res.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        res.setHeader("Cache-Control", "no-cache");
+        res.setBodyBuffers(sampler.latestText());
+    }
+}
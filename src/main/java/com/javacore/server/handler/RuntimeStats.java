@@ -0,0 +1,150 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.ServerMetrics;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the JVM and server statistics of one metrics sample: heap, GC per collector, buffer pools,
+ * class loading, server counters and the allocation of each server thread. Rates are computed
+ * against the previous sample.
+ * <p>
+ * Thread allocation comes from com.sun.management.ThreadMXBean#getThreadAllocatedBytes, which reads
+ * a per-thread counter without a safepoint (unlike thread dumps); it is left out on JVMs without it.
+ * Not thread-safe; used by the sampler thread.
+ */
+final class RuntimeStats {
+
+    private final ServerMetrics server;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final List<BufferPoolMXBean> bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocation;
+    private Sample previous;
+    private long previousNanos;
+    private Map<Long, Long> previousAllocated = Map.of();
+
+    /**
+     * @param server server counters and threads, or null to leave them out
+     */
+    RuntimeStats(ServerMetrics server) {
+        this.server = server;
+        this.allocation = threads instanceof com.sun.management.ThreadMXBean sunThreads
+                && sunThreads.isThreadAllocatedMemorySupported()
+                ? sunThreads
+                : null;
+        if (allocation != null && !allocation.isThreadAllocatedMemoryEnabled()) {
+            allocation.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    Sample collect() {
+        long now = System.nanoTime();
+        double seconds = previous != null ? (now - previousNanos) / 1e9 : 0;
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        List<Collector> gc = new ArrayList<>(collectors.size());
+        for (GarbageCollectorMXBean collector : collectors) {
+            gc.add(new Collector(collector.getName(), collector.getCollectionCount(), collector.getCollectionTime()));
+        }
+        List<BufferPool> pools = new ArrayList<>(bufferPools.size());
+        for (BufferPoolMXBean pool : bufferPools) {
+            pools.add(new BufferPool(pool.getName(), pool.getCount(), pool.getMemoryUsed(), pool.getTotalCapacity()));
+        }
+        Server serverStats = server != null ? serverStats(seconds) : null;
+
+        Sample sample = new Sample(
+                System.currentTimeMillis(),
+                heap.getUsed(),
+                heap.getMax() > 0 ? heap.getMax() : heap.getCommitted(),
+                threads.getThreadCount(),
+                gc,
+                pools,
+                new Classes(classLoading.getLoadedClassCount(), classLoading.getTotalLoadedClassCount(),
+                        classLoading.getUnloadedClassCount()),
+                serverStats);
+        previous = sample;
+        previousNanos = now;
+        return sample;
+    }
+
+    private Server serverStats(double seconds) {
+        List<Thread> serverThreads = server.threads();
+        List<ThreadAllocation> allocations = new ArrayList<>(serverThreads.size());
+        if (allocation != null) {
+            long[] ids = new long[serverThreads.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = serverThreads.get(i).getId();
+            }
+            long[] allocated = allocation.getThreadAllocatedBytes(ids);
+            Map<Long, Long> current = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (allocated[i] < 0) {
+                    continue;
+                }
+                current.put(ids[i], allocated[i]);
+                Long before = previousAllocated.get(ids[i]);
+                allocations.add(new ThreadAllocation(serverThreads.get(i).getName(), allocated[i],
+                        before != null ? rate(allocated[i] - before, seconds) : 0));
+            }
+            previousAllocated = current;
+        }
+        Server last = previous != null ? previous.server : null;
+        long accepted = server.accepted();
+        long bytesIn = server.bytesIn();
+        long bytesOut = server.bytesOut();
+        return new Server(
+                server.openConnections(),
+                accepted,
+                last != null ? rate(accepted - last.accepted, seconds) : 0,
+                bytesIn,
+                last != null ? rate(bytesIn - last.bytesIn, seconds) : 0,
+                bytesOut,
+                last != null ? rate(bytesOut - last.bytesOut, seconds) : 0,
+                allocations);
+    }
+
+    private static long rate(long delta, double seconds) {
+        return seconds > 0 ? Math.round(delta / seconds) : 0;
+    }
+
+    /**
+     * @param heapMax max heap, or committed heap when the max is undefined
+     * @param server  null when no ServerMetrics were given
+     */
+    record Sample(long sampledAt, long heapUsed, long heapMax, int threadCount, List<Collector> gc,
+                  List<BufferPool> bufferPools, Classes classes, Server server) {
+    }
+
+    /**
+     * @param timeMillis accumulated collection time
+     */
+    record Collector(String name, long count, long timeMillis) {
+    }
+
+    record BufferPool(String name, long count, long used, long capacity) {
+    }
+
+    record Classes(int loaded, long totalLoaded, long unloaded) {
+    }
+
+    /**
+     * Rates are per second since the previous sample (0 on the first one).
+     */
+    record Server(long openConnections, long accepted, long acceptedPerSecond, long bytesIn, long bytesInPerSecond,
+                  long bytesOut, long bytesOutPerSecond, List<ThreadAllocation> threads) {
+    }
+
+    record ThreadAllocation(String name, long allocatedBytes, long bytesPerSecond) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.javacore.server.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-capped cache of ready-to-send static files (all encoding variants), keyed by resource path.
+ * Lookups are lock-free; when an insert pushes the total over the cap, the least recently used
+ * entries are evicted. Populated lazily by StaticFileHandler.
+ */
+public final class StaticAssetCache {
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes cap on the summed size of cached assets; 0 disables caching
+     */
+    public StaticAssetCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * @return cached asset, or null on a miss
+     */
+    public CachedAsset get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        entry.lastAccess = System.nanoTime();
+        return entry.asset;
+    }
+
+    /**
+     * Like get() but without touching stats or recency; used for validator checks.
+     */
+    public CachedAsset peek(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.asset : null;
+    }
+
+    /**
+     * Whether an asset of this many bytes could be cached at all; when false, building one for the
+     * cache is wasted work.
+     */
+    public boolean fits(long size) {
+        return size <= maxBytes;
+    }
+
+    /**
+     * Caches asset under key unless it alone exceeds the cap.
+     */
+    public void put(String key, CachedAsset asset) {
+        int size = asset.size();
+        if (size > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(asset, size));
+        totalBytes.addAndGet(previous == null ? size : size - previous.size);
+        if (totalBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), totalBytes.get());
+    }
+
+    /**
+     * Removes least recently used entries until the cache fits the cap again.
+     */
+    private synchronized void evict() {
+        while (totalBytes.get() > maxBytes) {
+            String oldestKey = null;
+            Entry oldest = null;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().lastAccess < oldest.lastAccess) {
+                    oldestKey = candidate.getKey();
+                    oldest = candidate.getValue();
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldestKey, oldest)) {
+                totalBytes.addAndGet(-oldest.size);
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final CachedAsset asset;
+        final int size;
+        volatile long lastAccess = System.nanoTime();
+
+        Entry(CachedAsset asset, int size) {
+            this.asset = asset;
+            this.size = size;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int entries, long bytes) {
+    }
+}
@@ -1,47 +1,282 @@
 package com.javacore.server.handler;
 
+import com.javacore.server.server.ByteRanges;
+import com.javacore.server.server.FileRegion;
 import com.javacore.server.server.HttpRequest;
 import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.Validators;
+import com.javacore.server.util.ContentEncoding;
+import com.javacore.server.util.ContentEncoding.Coding;
 import com.javacore.server.util.ContentTypes;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
- * Serves static files from classpath resources under web/.
- * Rejects path traversal (..).
+ * Serves static files from classpath resources under web/, or from a document root directory.
+ * Request paths are normalized and rejected when they would leave web/ or the document root.
+ * <p>
+ * Classpath files are read and compressed once; later requests are served from the
+ * StaticAssetCache with the prebuilt variant matching Accept-Encoding. A file the cache cannot hold
+ * is read on every request and only the coding that request negotiated is compressed.
+ * In document root mode, small compressible files are cached the same way and rebuilt when their
+ * modification time or size changes; every other file is sent straight from disk with
+ * FileChannel.transferTo (zero-copy), with an ETag derived from size and modification time.
+ * <p>
+ * Cached files expose the validators of their cache entry, files the cache cannot hold validators
+ * built from size and modification time, so revalidation requests get a 304 before the file is read.
+ * Range / If-Range requests get 206 Partial Content (multipart/byteranges for several ranges of a
+ * cached file; files sent from disk honor single ranges only).
  */
 public class StaticFileHandler implements HttpHandler {
 
-    private static final String WEB_BASE = "web";
-    private static final String PATH_TRAVERSAL = "..";
+    private static final String WEB_BASE = "web/";
+    private static final String INDEX_FILE = "index.html";
+    private static final long DEFAULT_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final long MAX_CACHED_FILE_SIZE = 256 * 1024;
+    private static final long STARTUP_TIME = System.currentTimeMillis();
 
-    @Override
-    public void handle(HttpRequest req, HttpResponse res) {
-        String path = req.getPathForRouting();
-        if (path.contains(PATH_TRAVERSAL)) {
-            res.setStatusCode(404);
-            res.setBody("<h1>404 Not Found</h1>");
-            return;
+    private final StaticAssetCache cache;
+    private final Path documentRoot;
+
+    public StaticFileHandler() {
+        this(new StaticAssetCache(DEFAULT_CACHE_BYTES));
+    }
+
+    public StaticFileHandler(StaticAssetCache cache) {
+        this(cache, null);
+    }
+
+    /**
+     * @param documentRoot directory to serve files from, or null to serve classpath resources
+     */
+    public StaticFileHandler(StaticAssetCache cache, Path documentRoot) {
+        this.cache = cache;
+        try {
+            this.documentRoot = documentRoot != null ? documentRoot.toRealPath() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Document root not found: " + documentRoot, e);
         }
+    }
 
-        String resourcePath = WEB_BASE + path.replace("//", "/");
-        if (resourcePath.endsWith("/")) {
-            resourcePath = resourcePath + "index.html";
+    @Override
+    public Validators validators(HttpRequest req) {
+        String relativePath = normalize(req.getPathForRouting());
+        if (relativePath == null) {
+            return null;
+        }
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (documentRoot == null) {
+            CachedAsset cached = cache.peek(WEB_BASE + relativePath);
+            return cached != null ? cached.validators(acceptEncoding) : resourceValidators(req, WEB_BASE + relativePath);
+        }
+        Path file = resolveFile(relativePath);
+        BasicFileAttributes attrs = file != null ? readAttributes(file) : null;
+        if (attrs == null || !attrs.isRegularFile()) {
+            return null;
+        }
+        if (!isCacheable(file, attrs)) {
+            return fileValidators(attrs);
         }
+        CachedAsset cached = cache.peek(file.toString());
+        return cached != null && cached.isCurrent(attrs.lastModifiedTime().toMillis(), attrs.size())
+                ? cached.validators(acceptEncoding)
+                : null;
+    }
 
-        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resourcePath)) {
-            if (in == null) {
-                res.setStatusCode(404);
-                res.setBody("<h1>404 Not Found</h1>");
-                return;
+    @Override
+    public void handle(HttpRequest req, HttpResponse res) {
+        String relativePath = normalize(req.getPathForRouting());
+        if (relativePath == null) {
+            notFound(res);
+            return;
+        }
+        try {
+            if (documentRoot == null) {
+                handleResource(req, res, WEB_BASE + relativePath);
+            } else {
+                handleFile(req, res, relativePath);
             }
-            byte[] bytes = in.readAllBytes();
-            res.setContentType(ContentTypes.forPath(resourcePath));
-            res.setBody(bytes);
         } catch (IOException e) {
             res.setStatusCode(500);
             res.setBody("<h1>500 Internal Server Error</h1>");
         }
     }
+
+    /**
+     * Validators of a classpath resource the cache cannot hold, as sendOnce will send it. Read from
+     * the resource's metadata, and only for conditional requests, so plain requests pay nothing.
+     *
+     * @return validators, or null if the request is unconditional or the resource would be cached
+     */
+    private Validators resourceValidators(HttpRequest req, String resourcePath) {
+        if (req.getHeader("If-None-Match") == null && req.getHeader("If-Modified-Since") == null) {
+            return null;
+        }
+        URL url = getClass().getClassLoader().getResource(resourcePath);
+        if (url == null) {
+            return null;
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            long size = connection.getContentLengthLong();
+            long lastModified = connection.getLastModified();
+            // Reading the metadata may open the resource; close it rather than wait for the GC
+            connection.getInputStream().close();
+            if (size < 0 || cache.fits(size)) {
+                return null;
+            }
+            return CachedAsset.onceValidators(size, ContentTypes.forPath(resourcePath),
+                    lastModified > 0 ? lastModified : STARTUP_TIME, req.getHeader("Accept-Encoding"));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void handleResource(HttpRequest req, HttpResponse res, String resourcePath) throws IOException {
+        CachedAsset cached = cache.get(resourcePath);
+        if (cached != null) {
+            cached.send(req, res);
+            return;
+        }
+
+        URL url = getClass().getClassLoader().getResource(resourcePath);
+        if (url == null) {
+            notFound(res);
+            return;
+        }
+        URLConnection connection = url.openConnection();
+        long lastModified = connection.getLastModified();
+        byte[] bytes;
+        try (InputStream in = connection.getInputStream()) {
+            bytes = in.readAllBytes();
+        }
+        String contentType = ContentTypes.forPath(resourcePath);
+        long modified = lastModified > 0 ? lastModified : STARTUP_TIME;
+        if (!cache.fits(bytes.length)) {
+            CachedAsset.sendOnce(req, res, bytes, contentType, modified);
+            return;
+        }
+        CachedAsset asset = CachedAsset.build(bytes, contentType, modified);
+        cache.put(resourcePath, asset);
+        asset.send(req, res);
+    }
+
+    private void handleFile(HttpRequest req, HttpResponse res, String relativePath) throws IOException {
+        Path file = resolveFile(relativePath);
+        BasicFileAttributes attrs = file != null ? readAttributes(file) : null;
+        if (attrs == null || !attrs.isRegularFile()) {
+            notFound(res);
+            return;
+        }
+        String contentType = ContentTypes.forPath(file.toString());
+        if (!isCacheable(file, attrs)) {
+            sendFile(req, res, file, attrs, contentType);
+            return;
+        }
+
+        String key = file.toString();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        CachedAsset cached = cache.get(key);
+        if (cached == null || !cached.isCurrent(lastModified, attrs.size())) {
+            cached = CachedAsset.build(Files.readAllBytes(file), contentType, lastModified);
+            cache.put(key, cached);
+        }
+        cached.send(req, res);
+    }
+
+    private void sendFile(HttpRequest req, HttpResponse res, Path file, BasicFileAttributes attrs,
+                          String contentType) {
+        Validators validators = fileValidators(attrs);
+        FileRegion region = new FileRegion(file, 0, attrs.size());
+        if (ByteRanges.respond(req, res, region, contentType, validators)) {
+            return;
+        }
+        res.setContentType(contentType);
+        validators.applyTo(res);
+        res.setHeader("Accept-Ranges", "bytes");
+        res.setBodyFile(region);
+    }
+
+    /**
+     * Small compressible files are worth keeping in memory with precompressed variants, as long as
+     * the cache can hold them; everything else is sent from disk.
+     */
+    private boolean isCacheable(Path file, BasicFileAttributes attrs) {
+        return attrs.size() <= MAX_CACHED_FILE_SIZE
+                && cache.fits(attrs.size())
+                && ContentEncoding.isCompressible(ContentTypes.forPath(file.toString()));
+    }
+
+    /**
+     * Validators for a file sent from disk: hashing it per request would defeat zero-copy,
+     * so the ETag is built from size and modification time.
+     */
+    private static Validators fileValidators(BasicFileAttributes attrs) {
+        return CachedAsset.sizeValidators(attrs.size(), attrs.lastModifiedTime().toMillis(), Coding.IDENTITY, false);
+    }
+
+    /**
+     * Resolves a normalized path under the document root, following symlinks.
+     *
+     * @return the real file path, or null if it does not exist or lies outside the document root
+     */
+    private Path resolveFile(String relativePath) {
+        try {
+            Path file = documentRoot.resolve(relativePath).toRealPath();
+            return file.startsWith(documentRoot) ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collapses empty and "." segments; a trailing slash maps to index.html.
+     *
+     * @return path relative to the web root, or null if it contains ".." or illegal characters
+     */
+    static String normalize(String path) {
+        if (path.indexOf('\\') >= 0 || path.indexOf('\0') >= 0) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..")) {
+                return null;
+            }
+            if (normalized.length() > 0) {
+                normalized.append('/');
+            }
+            normalized.append(segment);
+        }
+        if (normalized.length() == 0 || path.endsWith("/")) {
+            if (normalized.length() > 0) {
+                normalized.append('/');
+            }
+            normalized.append(INDEX_FILE);
+        }
+        return normalized.toString();
+    }
+
+    private static void notFound(HttpResponse res) {
+        res.setStatusCode(404);
+        res.setBody("<h1>404 Not Found</h1>");
+    }
 }
@@ -2,28 +2,89 @@ package com.javacore.server.handler;
 
 import com.javacore.server.server.HttpRequest;
 import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.Validators;
+import com.javacore.server.topic.FragmentStore;
 import com.javacore.server.topic.JavaCoreTopic;
 import com.javacore.server.topic.TopicRegistry;
+import com.javacore.server.util.ContentTypes;
+import com.javacore.server.util.Template;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.lang.management.ManagementFactory;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 
 /**
- * Handles /topics/:slug - renders topic page with layout.
+ * Handles /topics/{slug} - renders topic page with layout. The slug comes from the route's path
+ * parameter.
+ * The layout is compiled once into a Template. Each page is rendered once per slug and kept as a
+ * CachedAsset (identity, gzip and deflate variants with their validators), so hits and
+ * revalidations do no rendering. Concurrent misses for one slug share a single render.
+ * A page's Last-Modified is the newest modification time of its layout and fragments.
+ * The time from JVM start to the first page served with 200 is logged once, as the cold-start figure.
+ * <p>
+ * With a document root, fragments and layout are read from disk and a WatchService invalidates
+ * the changed fragments and the pages of their topics (topics/&lt;slug&gt;/); a change to a
+ * layout file (topics/_*.html) recompiles the layout and invalidates every page.
  */
 public class TopicPageHandler implements HttpHandler {
 
     private static final String LAYOUT_PATH = "web/topics/_layout.html";
-    private static final String TITLE_PLACEHOLDER = "{{title}}";
-    private static final String CONTENT_PLACEHOLDER = "{{content}}";
-    private static final String TOPICS_NAV_PLACEHOLDER = "{{topicsNav}}";
-    private static final String BREADCRUMB_PLACEHOLDER = "{{breadcrumb}}";
+    private static final String LAYOUT_FILE = "_layout.html";
+    private static final String FALLBACK_LAYOUT = "<!DOCTYPE html><html><head><meta charset=\"utf-8\">"
+            + "<title>{{title}}</title></head><body>{{{content}}}</body></html>";
+    private static final String CONTENT_TYPE = ContentTypes.forExtension("html");
+    private static final long STARTUP_TIME = System.currentTimeMillis();
+
+    private final Map<String, CompletableFuture<CachedAsset>> pages = new ConcurrentHashMap<>();
+    private final Path topicsDirectory;
+    private final AtomicLong firstPageUptime = new AtomicLong(-1);
+    private volatile Template layout;
+
+    public TopicPageHandler() {
+        this(null);
+    }
+
+    /**
+     * @param documentRoot directory holding topics/ (layout and fragments), or null for the classpath
+     */
+    public TopicPageHandler(Path documentRoot) {
+        this.topicsDirectory = documentRoot != null ? documentRoot.resolve("topics") : null;
+        this.layout = loadLayout();
+        if (topicsDirectory != null && Files.isDirectory(topicsDirectory)) {
+            startWatcher();
+        }
+    }
+
+    @Override
+    public Validators validators(HttpRequest req) {
+        String slug = req.pathParam("slug");
+        CompletableFuture<CachedAsset> page = slug != null ? pages.get(slug) : null;
+        if (page == null || !page.isDone() || page.isCompletedExceptionally()) {
+            return null;
+        }
+        return page.join().validators(req.getHeader("Accept-Encoding"));
+    }
 
     @Override
     public void handle(HttpRequest req, HttpResponse res) {
-        String slug = extractSlug(req.getPathForRouting());
+        String slug = req.pathParam("slug");
         if (slug == null || slug.isEmpty()) {
             res.setStatusCode(404);
             res.setBody("<h1>404 Not Found</h1>");
@@ -33,11 +94,10 @@ public class TopicPageHandler implements HttpHandler {
         TopicRegistry.findBySlug(slug)
                 .ifPresentOrElse(
                         topic -> {
-                            String content = topic.getContentHtml();
-                            String topicsNav = buildTopicsNav(slug);
-                            String breadcrumb = buildBreadcrumb(topic);
-                            String html = wrapInLayout(topic.getTitle(), content, topicsNav, breadcrumb);
-                            res.setBody(html);
+                            page(slug, topic).send(req, res);
+                            if (res.getStatusCode() == 200 && firstPageUptime.get() < 0) {
+                                recordFirstPage();
+                            }
                         },
                         () -> {
                             res.setStatusCode(404);
@@ -45,28 +105,82 @@ public class TopicPageHandler implements HttpHandler {
                         });
     }
 
-    private String extractSlug(String path) {
-        if (path == null || !path.startsWith("/topics/")) {
-            return null;
+    /**
+     * Milliseconds from JVM start to the first topic page served with 200, or -1 if none yet.
+     */
+    public long firstPageUptimeMillis() {
+        return firstPageUptime.get();
+    }
+
+    private void recordFirstPage() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (firstPageUptime.compareAndSet(-1, uptime)) {
+            System.out.println("First topic page served " + uptime + " ms after JVM start");
         }
-        String slug = path.substring("/topics/".length());
-        int query = slug.indexOf('?');
-        if (query >= 0) {
-            slug = slug.substring(0, query);
+    }
+
+    /**
+     * Rendered page for slug. The first caller renders; concurrent callers wait for its result.
+     */
+    private CachedAsset page(String slug, JavaCoreTopic topic) {
+        CompletableFuture<CachedAsset> page = pages.get(slug);
+        if (page == null) {
+            CompletableFuture<CachedAsset> render = new CompletableFuture<>();
+            page = pages.putIfAbsent(slug, render);
+            if (page == null) {
+                page = render;
+                try {
+                    render.complete(render(slug, topic));
+                } catch (RuntimeException e) {
+                    pages.remove(slug, render);
+                    render.completeExceptionally(e);
+                }
+            }
         }
-        return slug.trim().isEmpty() ? null : slug;
+        return page.join();
+    }
+
+    private CachedAsset render(String slug, JavaCoreTopic topic) {
+        byte[] body = layout.render(Map.of(
+                "title", topic.getTitle(),
+                "topicsNav", buildTopicsNav(slug),
+                "breadcrumb", buildBreadcrumb(topic),
+                "content", topic.getContentUtf8()));
+        return CachedAsset.build(body, CONTENT_TYPE, lastModified(topic));
     }
 
-    private String wrapInLayout(String title, String content, String topicsNav, String breadcrumb) {
-        String layout = loadLayout();
-        if (layout == null) {
-            return "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>" + title + "</title></head><body>"
-                    + content + "</body></html>";
+    /**
+     * Newest modification time of the page's sources. Content built in code, and sources whose
+     * time is unknown, date from server start.
+     */
+    private long lastModified(JavaCoreTopic topic) {
+        long modified = layoutModified();
+        if (topic.getFragments().isEmpty()) {
+            modified = Math.max(modified, STARTUP_TIME);
         }
-        return layout.replace(TITLE_PLACEHOLDER, title != null ? title : "")
-                .replace(TOPICS_NAV_PLACEHOLDER, topicsNav != null ? topicsNav : "")
-                .replace(CONTENT_PLACEHOLDER, content != null ? content : "")
-                .replace(BREADCRUMB_PLACEHOLDER, breadcrumb != null ? breadcrumb : "");
+        FragmentStore fragments = FragmentStore.shared();
+        for (String fragment : topic.getFragments()) {
+            modified = Math.max(modified, fragments.lastModified(topic.getSlug(), fragment));
+        }
+        return modified > 0 ? modified : STARTUP_TIME;
+    }
+
+    /**
+     * Newest of the layout files (topics/_*.html) in the document root, or of the classpath layout.
+     */
+    private long layoutModified() {
+        if (topicsDirectory == null || !Files.exists(topicsDirectory.resolve(LAYOUT_FILE))) {
+            return FragmentStore.resourceModified(LAYOUT_PATH);
+        }
+        long modified = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(topicsDirectory, "_*.html")) {
+            for (Path file : files) {
+                modified = Math.max(modified, Files.getLastModifiedTime(file).toMillis());
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+        return modified;
     }
 
     private String buildBreadcrumb(JavaCoreTopic topic) {
@@ -76,7 +190,7 @@ public class TopicPageHandler implements HttpHandler {
             topicLabel = topicLabel.substring(0, dash);
         }
         String topicUrl = "/topics/" + topic.getSlug();
-        return "<a href=\"/\">Trang ch&#7911;</a> / <a href=\"" + topicUrl + "\">" + escapeHtml(topicLabel) + "</a>";
+        return "<a href=\"/\">Trang ch&#7911;</a> / <a href=\"" + topicUrl + "\">" + Template.escapeHtml(topicLabel) + "</a>";
     }
 
     private String buildTopicsNav(String currentSlug) {
@@ -87,31 +201,97 @@ public class TopicPageHandler implements HttpHandler {
             boolean isActive = topic.getSlug().equals(currentSlug);
             String linkClass = isActive ? " class=\"topic-sidebar-link--active\"" : "";
             sb.append("<li><a href=\"/topics/").append(topic.getSlug()).append("\"")
-                    .append(linkClass).append(">").append(escapeHtml(topic.getTitle()))
+                    .append(linkClass).append(">").append(Template.escapeHtml(topic.getTitle()))
                     .append("</a></li>");
         }
         sb.append("</ul></nav>");
         return sb.toString();
     }
 
-    private String escapeHtml(String text) {
-        if (text == null) {
-            return "";
+    private Template loadLayout() {
+        try {
+            Template loaded = topicsDirectory != null && Files.exists(topicsDirectory.resolve(LAYOUT_FILE))
+                    ? Template.load(topicsDirectory.resolve(LAYOUT_FILE))
+                    : Template.load(getClass().getClassLoader(), LAYOUT_PATH);
+            return loaded != null ? loaded : Template.compile(FALLBACK_LAYOUT);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Cannot load topic layout: " + e.getMessage());
+            return layout != null ? layout : Template.compile(FALLBACK_LAYOUT);
         }
-        return text.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;");
     }
 
-    private String loadLayout() {
-        try (InputStream in = getClass().getClassLoader().getResourceAsStream(LAYOUT_PATH)) {
-            if (in == null) {
-                return null;
+    private void invalidateFragments(String slug, WatchEvent<?> event) {
+        FragmentStore fragments = FragmentStore.shared();
+        if (event.kind() != OVERFLOW) {
+            fragments.invalidate(slug, event.context().toString());
+            return;
+        }
+        TopicRegistry.findBySlug(slug).ifPresent(topic -> {
+            for (String fragment : topic.getFragments()) {
+                fragments.invalidate(slug, fragment);
             }
-            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        });
+    }
+
+    private void startWatcher() {
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            Map<WatchKey, String> slugsByKey = new ConcurrentHashMap<>();
+            register(watcher, slugsByKey, topicsDirectory, "");
+            for (JavaCoreTopic topic : TopicRegistry.getAll()) {
+                register(watcher, slugsByKey, topicsDirectory.resolve(topic.getSlug()), topic.getSlug());
+            }
+            Thread thread = new Thread(() -> watch(watcher, slugsByKey), "topic-watcher");
+            thread.setDaemon(true);
+            thread.start();
         } catch (IOException e) {
-            return null;
+            System.err.println("Topic file watching disabled: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param slug topic whose fragments live in directory; "" for the topics directory itself
+     */
+    private void register(WatchService watcher, Map<WatchKey, String> slugsByKey, Path directory, String slug) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            slugsByKey.put(directory.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), slug);
+        } catch (IOException e) {
+            System.err.println("Cannot watch " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void watch(WatchService watcher, Map<WatchKey, String> slugsByKey) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                String slug = slugsByKey.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (slug == null) {
+                        continue;
+                    }
+                    if (!slug.isEmpty()) {
+                        invalidateFragments(slug, event);
+                        pages.remove(slug);
+                        continue;
+                    }
+                    String name = event.kind() == OVERFLOW ? LAYOUT_FILE : event.context().toString();
+                    if (name.startsWith("_")) {
+                        layout = loadLayout();
+                        pages.clear();
+                    } else if (event.kind() == ENTRY_CREATE && TopicRegistry.findBySlug(name).isPresent()) {
+                        register(watcher, slugsByKey, topicsDirectory.resolve(name), name);
+                        pages.remove(name);
+                    }
+                }
+                if (!key.reset()) {
+                    slugsByKey.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
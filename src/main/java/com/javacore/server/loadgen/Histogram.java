@@ -0,0 +1,92 @@
+package com.javacore.server.loadgen;
+
+/**
+ * Latency histogram for one load worker, in microseconds.
+ * <p>
+ * Log-linear buckets like the server's LatencyHistogram, but with 128 sub-buckets per power of two,
+ * so a value is reported within 0.8% (values up to ~71 minutes). Single writer and no window: each
+ * worker records into its own histogram and they are merged once the run is over.
+ */
+final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_MICROS = (1L << 32) - 1;
+    static final int BUCKETS = bucketIndex(MAX_MICROS) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long totalMicros;
+    private long max;
+
+    void record(long nanos) {
+        long micros = Math.min(Math.max(0, nanos / 1000), MAX_MICROS);
+        counts[bucketIndex(micros)]++;
+        count++;
+        totalMicros += micros;
+        max = Math.max(max, micros);
+    }
+
+    void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        totalMicros += other.totalMicros;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return count > 0 ? (double) totalMicros / count : 0;
+    }
+
+    long countAt(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Smallest value at or below which percentile percent of the values fall (within bucket precision).
+     */
+    long valueAt(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValue(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value that falls into the bucket.
+     */
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,185 @@
+package com.javacore.server.loadgen;
+
+/**
+ * Settings for a LoadGenerator run.
+ * Defaults drive a local server with a closed loop; override via system properties (load.*) or setters.
+ */
+public final class LoadConfig {
+
+    private String host = "localhost";
+    private int port = 9091;
+    private int connections = 32;
+    private int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private int rate;
+    private boolean keepAlive = true;
+    private String mix = "topics=8,static=1,metrics=1";
+    private String acceptEncoding = "gzip, deflate, br";
+
+    public static LoadConfig defaults() {
+        return new LoadConfig();
+    }
+
+    /**
+     * Reads overrides from system properties, e.g. -Dload.connections=64 -Dload.rate=20000.
+     * Invalid values are ignored and the default is kept.
+     */
+    public static LoadConfig fromSystemProperties() {
+        LoadConfig config = new LoadConfig();
+        config.setConnections(intProperty("load.connections", config.connections));
+        config.setThreads(intProperty("load.threads", config.threads));
+        config.setDurationSeconds(intProperty("load.durationSeconds", config.durationSeconds));
+        config.setWarmupSeconds(intProperty("load.warmupSeconds", config.warmupSeconds));
+        config.setRate(intProperty("load.rate", config.rate));
+        String keepAlive = System.getProperty("load.keepAlive");
+        if (keepAlive != null) {
+            config.setKeepAlive(Boolean.parseBoolean(keepAlive.trim()));
+        }
+        String mix = System.getProperty("load.mix");
+        if (mix != null && !mix.isBlank()) {
+            config.setMix(mix.trim());
+        }
+        String acceptEncoding = System.getProperty("load.acceptEncoding");
+        if (acceptEncoding != null) {
+            config.setAcceptEncoding(acceptEncoding.trim());
+        }
+        return config;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public LoadConfig setHost(String host) {
+        this.host = host;
+        return this;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public LoadConfig setPort(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Target as "host:port" or "port".
+     */
+    public LoadConfig setTarget(String target) {
+        int colon = target.lastIndexOf(':');
+        if (colon > 0) {
+            setHost(target.substring(0, colon));
+        }
+        return setPort(Integer.parseInt(target.substring(colon + 1)));
+    }
+
+    /**
+     * Connections kept open to the server; each carries one request at a time.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    public LoadConfig setConnections(int connections) {
+        this.connections = Math.max(1, connections);
+        return this;
+    }
+
+    /**
+     * Selector threads the connections are spread over.
+     */
+    public int getThreads() {
+        return Math.min(threads, connections);
+    }
+
+    public LoadConfig setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public LoadConfig setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = Math.max(1, durationSeconds);
+        return this;
+    }
+
+    /**
+     * Time the load runs before results are recorded, so the server's JIT and caches warm up.
+     */
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public LoadConfig setWarmupSeconds(int warmupSeconds) {
+        this.warmupSeconds = Math.max(0, warmupSeconds);
+        return this;
+    }
+
+    /**
+     * Requests per second over all connections for an open loop, or 0 for a closed loop (each
+     * connection sends its next request as soon as the previous response is complete).
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    public LoadConfig setRate(int rate) {
+        this.rate = Math.max(0, rate);
+        return this;
+    }
+
+    /**
+     * With keep-alive off, every request opens a new connection and sends Connection: close.
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public LoadConfig setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * Weighted URL mix, e.g. "topics=8,static=1,metrics=1" or "/topics/oop=1"; see UrlMix.
+     */
+    public String getMix() {
+        return mix;
+    }
+
+    public LoadConfig setMix(String mix) {
+        this.mix = mix;
+        return this;
+    }
+
+    /**
+     * Accept-Encoding sent with every request; empty to send none.
+     */
+    public String getAcceptEncoding() {
+        return acceptEncoding;
+    }
+
+    public LoadConfig setAcceptEncoding(String acceptEncoding) {
+        this.acceptEncoding = acceptEncoding;
+        return this;
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + ", using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.javacore.server.loadgen;
+
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP load generator for a running NioServer: non-blocking SocketChannels spread over a few
+ * selector threads (LoadWorker), in a closed loop or an open loop at a constant request rate.
+ * Reports throughput, response and error counts, latency percentiles and a latency distribution.
+ * <p>
+ * Run against a server started separately (a generator in the server's JVM would share its
+ * CPU and GC):
+ * <pre>
+ * java -Dload.connections=64 -Dload.rate=20000 -cp target/classes com.javacore.server.loadgen.LoadGenerator localhost:9091
+ * </pre>
+ * Settings are read from load.* system properties (see LoadConfig); the optional argument is the
+ * target as host:port or port.
+ */
+public final class LoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 75, 90, 99, 99.9, 99.99, 100};
+    private static final int BAR_WIDTH = 40;
+
+    private final LoadConfig config;
+
+    LoadGenerator(LoadConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        if (args.length > 0) {
+            try {
+                config.setTarget(args[0]);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid target, expected host:port or port: " + args[0]);
+                System.exit(2);
+            }
+        }
+        LoadGenerator generator = new LoadGenerator(config);
+        try {
+            generator.print(generator.run(), System.out);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Runs the warm-up and the measurement; blocks until both are over.
+     *
+     * @throws IllegalArgumentException if the URL mix is invalid
+     */
+    Result run() throws InterruptedException {
+        UrlMix mix = new UrlMix(config.getMix());
+        ByteBuffer[] requests = new ByteBuffer[mix.paths().size()];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = encodeRequest(mix.paths().get(i));
+        }
+        InetSocketAddress address = new InetSocketAddress(config.getHost(), config.getPort());
+        int connections = config.getConnections();
+        int threadCount = config.getThreads();
+        int rate = config.getRate();
+        long intervalNanos = rate > 0 ? Math.max(1, (long) (connections * 1e9 / rate)) : 0;
+        long staggerNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+
+        System.out.printf("Running %d s (after %d s warm-up) against %s:%d...%n",
+                config.getDurationSeconds(), config.getWarmupSeconds(), config.getHost(), config.getPort());
+        List<LoadWorker> workers = new ArrayList<>(threadCount);
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int w = 0; w < threadCount; w++) {
+            // Connection i belongs to worker i % threadCount and first sends at start + i * stagger.
+            long[] firstStarts = new long[(connections - w + threadCount - 1) / threadCount];
+            for (int i = 0; i < firstStarts.length; i++) {
+                firstStarts[i] = start + (w + (long) i * threadCount) * staggerNanos;
+            }
+            LoadWorker worker = new LoadWorker(address, mix, requests, intervalNanos, firstStarts,
+                    measureFrom, end, System.nanoTime() + w);
+            Thread thread = new Thread(worker, "loadgen-" + w);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Histogram latency = new Histogram();
+        Histogram serviceTime = new Histogram();
+        long[] byPath = new long[requests.length];
+        long[] statusClasses = new long[6];
+        long completed = 0;
+        long bytesRead = 0;
+        long connectErrors = 0;
+        long ioErrors = 0;
+        long protocolErrors = 0;
+        for (LoadWorker worker : workers) {
+            latency.add(worker.latency);
+            serviceTime.add(worker.serviceTime);
+            for (int i = 0; i < byPath.length; i++) {
+                byPath[i] += worker.requestsByPath[i];
+            }
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] += worker.statusClasses[i];
+            }
+            completed += worker.completed;
+            bytesRead += worker.bytesRead;
+            connectErrors += worker.connectErrors;
+            ioErrors += worker.ioErrors;
+            protocolErrors += worker.protocolErrors;
+        }
+        List<PathCount> paths = new ArrayList<>(byPath.length);
+        for (int i = 0; i < byPath.length; i++) {
+            paths.add(new PathCount(mix.paths().get(i), mix.group(i), byPath[i]));
+        }
+        return new Result(config.getDurationSeconds(), completed, bytesRead, statusClasses, connectErrors,
+                ioErrors, protocolErrors, latency, serviceTime, paths);
+    }
+
+    private ByteBuffer encodeRequest(String path) {
+        StringBuilder request = new StringBuilder("GET ").append(path).append(" HTTP/1.1\r\n")
+                .append("Host: ").append(config.getHost()).append(':').append(config.getPort()).append("\r\n")
+                .append("User-Agent: javacore-loadgen\r\n")
+                .append("Accept: */*\r\n");
+        if (!config.getAcceptEncoding().isEmpty()) {
+            request.append("Accept-Encoding: ").append(config.getAcceptEncoding()).append("\r\n");
+        }
+        request.append("Connection: ").append(config.isKeepAlive() ? "keep-alive" : "close").append("\r\n\r\n");
+        return ByteBuffer.wrap(request.toString().getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+    }
+
+    void print(Result result, PrintStream out) {
+        boolean openLoop = config.getRate() > 0;
+        out.println();
+        out.printf("Target      %s:%d, %d connections on %d threads, %s, %s%n", config.getHost(), config.getPort(),
+                config.getConnections(), config.getThreads(), config.isKeepAlive() ? "keep-alive" : "new connection per request",
+                openLoop ? "open loop at " + config.getRate() + " req/s" : "closed loop");
+        out.printf("URL mix     %s (%d paths)%n", config.getMix(), result.paths().size());
+        out.printf("Requests    %d in %d s = %.1f req/s%n", result.completed(), result.seconds(), result.requestsPerSecond());
+        out.printf("Read        %.1f MB = %.2f MB/s%n", result.bytesRead() / 1e6, result.bytesRead() / 1e6 / result.seconds());
+        long[] status = result.statusClasses();
+        out.printf("Responses   2xx %d, 3xx %d, 4xx %d, 5xx %d%n", status[2], status[3], status[4], status[5]);
+        out.printf("Errors      connect %d, read/write %d, protocol %d%n",
+                result.connectErrors(), result.ioErrors(), result.protocolErrors());
+
+        out.println();
+        out.println(openLoop
+                ? "Latency     from scheduled send (corrected for coordinated omission); service time from actual send"
+                : "Latency");
+        out.printf("  %-8s %12s%s%n", "mean", formatMicros(Math.round(result.latency().mean())),
+                openLoop ? String.format(" %12s", formatMicros(Math.round(result.serviceTime().mean()))) : "");
+        for (double percentile : PERCENTILES) {
+            String label = percentile == 100 ? "max" : "p" + (percentile == Math.rint(percentile)
+                    ? String.valueOf((int) percentile) : String.valueOf(percentile));
+            out.printf("  %-8s %12s%s%n", label, formatMicros(result.latency().valueAt(percentile)),
+                    openLoop ? String.format(" %12s", formatMicros(result.serviceTime().valueAt(percentile))) : "");
+        }
+
+        out.println();
+        out.println("Latency distribution");
+        printDistribution(result.latency(), out);
+
+        out.println();
+        out.println("Requests by path");
+        for (PathCount path : result.paths()) {
+            out.printf("  %-28s %-8s %10d %6.1f%%%n", path.path(), path.group(), path.count(),
+                    result.completed() > 0 ? 100.0 * path.count() / result.completed() : 0);
+        }
+    }
+
+    /**
+     * One row per power of two (in microseconds) between the fastest and slowest response.
+     */
+    private static void printDistribution(Histogram histogram, PrintStream out) {
+        long total = histogram.count();
+        if (total == 0) {
+            out.println("  (no responses)");
+            return;
+        }
+        long[] rows = new long[64];
+        int first = rows.length;
+        int last = 0;
+        for (int bucket = 0; bucket < Histogram.BUCKETS; bucket++) {
+            long count = histogram.countAt(bucket);
+            if (count == 0) {
+                continue;
+            }
+            int row = 64 - Long.numberOfLeadingZeros(Histogram.highestValue(bucket));
+            rows[row] += count;
+            first = Math.min(first, row);
+            last = Math.max(last, row);
+        }
+        long cumulative = 0;
+        for (int row = first; row <= last; row++) {
+            cumulative += rows[row];
+            double share = 100.0 * rows[row] / total;
+            out.printf("  <= %-10s %10d %6.2f%% %7.3f%% %s%n", formatMicros((1L << row) - 1), rows[row], share,
+                    100.0 * cumulative / total, "#".repeat((int) Math.round(share * BAR_WIDTH / 100)));
+        }
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1_000) {
+            return micros + " us";
+        }
+        if (micros < 1_000_000) {
+            return String.format("%.3f ms", micros / 1e3);
+        }
+        return String.format("%.3f s", micros / 1e6);
+    }
+
+    /**
+     * Totals of the measured period (warm-up excluded).
+     *
+     * @param statusClasses responses by status class, indexed by status / 100
+     * @param latency       from the scheduled send time in an open loop, from the actual send otherwise
+     * @param serviceTime   from the actual send; equal to latency in a closed loop
+     */
+    record Result(long seconds, long completed, long bytesRead, long[] statusClasses, long connectErrors,
+                         long ioErrors, long protocolErrors, Histogram latency, Histogram serviceTime,
+                         List<PathCount> paths) {
+
+        double requestsPerSecond() {
+            return (double) completed / seconds;
+        }
+    }
+
+    record PathCount(String path, String group, long count) {
+    }
+}
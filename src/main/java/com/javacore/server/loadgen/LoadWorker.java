@@ -0,0 +1,416 @@
+package com.javacore.server.loadgen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * One selector thread driving a share of the load generator's connections, one request in flight
+ * per connection.
+ * <p>
+ * Closed loop: a connection sends its next request as soon as the previous response is complete.
+ * Open loop: each connection has a fixed schedule (one request every intervalNanos). A request
+ * that is due while the previous one is still in flight waits, and its latency is measured from
+ * the time it was due rather than the time it was sent. A server stall then shows up in the
+ * latency of every request scheduled during it, not just the one that was in flight (the
+ * coordinated-omission correction used by wrk2 and HdrHistogram).
+ * <p>
+ * Responses are parsed just far enough to find their end: status line, Content-Length and
+ * Connection: close; bodies are skipped without copying. Chunked responses are not supported.
+ * Only responses completed after measureFromNanos are counted. Results are read once the thread
+ * has been joined.
+ */
+final class LoadWorker implements Runnable {
+
+    private static final long ERROR_BACKOFF_NANOS = 100_000_000;
+    private static final int MAX_HEAD = 16 * 1024;
+    private static final long UNTIL_EOF = -1;
+
+    private final InetSocketAddress address;
+    private final UrlMix mix;
+    private final ByteBuffer[] requests;
+    private final long intervalNanos;
+    private final long measureFromNanos;
+    private final long endNanos;
+    private final Connection[] connections;
+    private final SplittableRandom random;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private Selector selector;
+
+    final Histogram latency = new Histogram();
+    final Histogram serviceTime = new Histogram();
+    final long[] requestsByPath;
+    final long[] statusClasses = new long[6];
+    long completed;
+    long bytesRead;
+    long connectErrors;
+    long ioErrors;
+    long protocolErrors;
+
+    /**
+     * @param requests      encoded request per UrlMix path
+     * @param intervalNanos time between requests on one connection (open loop), or 0 for a closed loop
+     * @param firstStarts   time each of this worker's connections sends its first request
+     */
+    LoadWorker(InetSocketAddress address, UrlMix mix, ByteBuffer[] requests, long intervalNanos,
+               long[] firstStarts, long measureFromNanos, long endNanos, long seed) {
+        this.address = address;
+        this.mix = mix;
+        this.requests = requests;
+        this.intervalNanos = intervalNanos;
+        this.measureFromNanos = measureFromNanos;
+        this.endNanos = endNanos;
+        this.random = new SplittableRandom(seed);
+        this.requestsByPath = new long[requests.length];
+        this.connections = new Connection[firstStarts.length];
+        for (int i = 0; i < firstStarts.length; i++) {
+            connections[i] = new Connection();
+            connections[i].nextStart = firstStarts[i];
+        }
+    }
+
+    @Override
+    public void run() {
+        try (Selector opened = Selector.open()) {
+            selector = opened;
+            long now;
+            while ((now = System.nanoTime()) < endNanos) {
+                long wait = endNanos - now;
+                for (Connection connection : connections) {
+                    if (connection.state == State.IDLE) {
+                        if (connection.nextStart <= now) {
+                            begin(connection, now);
+                        } else {
+                            wait = Math.min(wait, connection.nextStart - now);
+                        }
+                    }
+                }
+                if (wait < 1_000_000) {
+                    selector.selectNow();
+                } else {
+                    selector.select(wait / 1_000_000);
+                }
+                now = System.nanoTime();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        handle((Connection) key.attachment(), key, now);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (Connection connection : connections) {
+                closeChannel(connection);
+            }
+        }
+    }
+
+    private void handle(Connection connection, SelectionKey key, long now) {
+        try {
+            if (key.isConnectable()) {
+                if (connection.channel.finishConnect()) {
+                    write(connection);
+                }
+            } else if (key.isWritable()) {
+                write(connection);
+            } else if (key.isReadable()) {
+                read(connection, now);
+            }
+        } catch (IOException e) {
+            ioFailure(connection, now);
+        }
+    }
+
+    private void begin(Connection connection, long now) {
+        connection.intended = intervalNanos > 0 ? connection.nextStart : now;
+        connection.startedAt = now;
+        connection.path = mix.pick(random);
+        connection.request = requests[connection.path].duplicate();
+        try {
+            if (connection.channel != null) {
+                write(connection);
+                return;
+            }
+            connection.state = State.CONNECTING;
+            SocketChannel channel = SocketChannel.open();
+            connection.channel = channel;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            if (channel.connect(address)) {
+                connection.key = channel.register(selector, 0, connection);
+                write(connection);
+            } else {
+                connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            }
+        } catch (IOException e) {
+            ioFailure(connection, now);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        connection.channel.write(connection.request);
+        if (connection.request.hasRemaining()) {
+            connection.state = State.WRITING;
+            connection.key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        connection.state = State.READING;
+        connection.headLength = 0;
+        connection.headDone = false;
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void read(Connection connection, long now) throws IOException {
+        readBuffer.clear();
+        int read = connection.channel.read(readBuffer);
+        if (read < 0) {
+            if (connection.state == State.READING && connection.headDone && connection.bodyRemaining == UNTIL_EOF) {
+                complete(connection, now);
+            } else if (connection.state == State.READING) {
+                throw new IOException("Connection closed before the response was complete");
+            } else {
+                // Idle keep-alive connection closed by the server; the next request reconnects.
+                closeChannel(connection);
+            }
+            return;
+        }
+        if (now >= measureFromNanos) {
+            bytesRead += read;
+        }
+        consume(connection, readBuffer.flip(), now);
+    }
+
+    private void consume(Connection connection, ByteBuffer buffer, long now) {
+        while (buffer.hasRemaining()) {
+            if (connection.state != State.READING) {
+                // Bytes after a complete response: the connection cannot be trusted any more.
+                protocolError(connection, now);
+                return;
+            }
+            if (!connection.headDone) {
+                if (connection.headLength == MAX_HEAD) {
+                    protocolError(connection, now);
+                    return;
+                }
+                byte b = buffer.get();
+                connection.head[connection.headLength++] = b;
+                if (b == '\n' && endsWithBlankLine(connection)) {
+                    if (!parseHead(connection)) {
+                        protocolError(connection, now);
+                        return;
+                    }
+                    if (connection.bodyRemaining == 0) {
+                        complete(connection, now);
+                    }
+                }
+            } else if (connection.bodyRemaining == UNTIL_EOF) {
+                buffer.position(buffer.limit());
+            } else {
+                int skip = (int) Math.min(connection.bodyRemaining, buffer.remaining());
+                buffer.position(buffer.position() + skip);
+                connection.bodyRemaining -= skip;
+                if (connection.bodyRemaining == 0) {
+                    complete(connection, now);
+                }
+            }
+        }
+    }
+
+    private void complete(Connection connection, long now) {
+        if (now >= measureFromNanos) {
+            completed++;
+            requestsByPath[connection.path]++;
+            statusClasses[Math.min(connection.status / 100, statusClasses.length - 1)]++;
+            latency.record(now - connection.intended);
+            serviceTime.record(now - connection.startedAt);
+        }
+        connection.state = State.IDLE;
+        connection.nextStart = intervalNanos > 0 ? connection.intended + intervalNanos : now;
+        if (connection.closeAfter) {
+            closeChannel(connection);
+        }
+    }
+
+    private void ioFailure(Connection connection, long now) {
+        if (now >= measureFromNanos) {
+            if (connection.state == State.CONNECTING) {
+                connectErrors++;
+            } else {
+                ioErrors++;
+            }
+        }
+        fail(connection, now);
+    }
+
+    private void protocolError(Connection connection, long now) {
+        if (now >= measureFromNanos) {
+            protocolErrors++;
+        }
+        fail(connection, now);
+    }
+
+    /**
+     * Drops the connection. The open-loop schedule goes on; a closed loop retries after a back-off
+     * so a refused connection does not spin.
+     */
+    private void fail(Connection connection, long now) {
+        closeChannel(connection);
+        connection.state = State.IDLE;
+        connection.nextStart = intervalNanos > 0 ? connection.intended + intervalNanos : now + ERROR_BACKOFF_NANOS;
+    }
+
+    private static void closeChannel(Connection connection) {
+        if (connection.channel == null) {
+            return;
+        }
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+        connection.channel = null;
+        connection.key = null;
+    }
+
+    private static boolean endsWithBlankLine(Connection connection) {
+        int length = connection.headLength;
+        byte[] head = connection.head;
+        return length >= 4 && head[length - 4] == '\r' && head[length - 3] == '\n' && head[length - 2] == '\r';
+    }
+
+    /**
+     * Reads status, Content-Length, Transfer-Encoding and Connection from the response head.
+     *
+     * @return false if the head is malformed or the body is chunked
+     */
+    private boolean parseHead(Connection connection) {
+        byte[] head = connection.head;
+        int length = connection.headLength;
+        if (length < 12 || !startsWith(head, 0, "HTTP/1.")) {
+            return false;
+        }
+        int status = 0;
+        for (int i = 9; i < 12; i++) {
+            if (head[i] < '0' || head[i] > '9') {
+                return false;
+            }
+            status = status * 10 + head[i] - '0';
+        }
+        connection.status = status;
+        connection.closeAfter = false;
+        long contentLength = -1;
+        boolean chunked = false;
+        int lineStart = indexOf(head, '\n', 0, length) + 1;
+        while (lineStart < length - 2) {
+            int lineEnd = indexOf(head, '\r', lineStart, length);
+            int value;
+            if ((value = headerValue(head, lineStart, lineEnd, "content-length")) >= 0) {
+                contentLength = 0;
+                for (int i = value; i < lineEnd; i++) {
+                    if (head[i] < '0' || head[i] > '9') {
+                        return false;
+                    }
+                    contentLength = contentLength * 10 + head[i] - '0';
+                }
+            } else if ((value = headerValue(head, lineStart, lineEnd, "transfer-encoding")) >= 0) {
+                chunked = startsWith(head, value, "chunked");
+            } else if ((value = headerValue(head, lineStart, lineEnd, "connection")) >= 0) {
+                connection.closeAfter = startsWith(head, value, "close");
+            }
+            lineStart = lineEnd + 2;
+        }
+        if (status < 200 || status == 204 || status == 304) {
+            connection.bodyRemaining = 0;
+        } else if (chunked) {
+            return false;
+        } else if (contentLength >= 0) {
+            connection.bodyRemaining = contentLength;
+        } else {
+            connection.bodyRemaining = UNTIL_EOF;
+            connection.closeAfter = true;
+        }
+        connection.headDone = true;
+        return true;
+    }
+
+    /**
+     * Start of the value if the line is the named header (case-insensitive), otherwise -1.
+     */
+    private static int headerValue(byte[] head, int from, int to, String name) {
+        int colon = from + name.length();
+        if (colon >= to || head[colon] != ':' || !startsWith(head, from, name)) {
+            return -1;
+        }
+        int value = colon + 1;
+        while (value < to && head[value] == ' ') {
+            value++;
+        }
+        return value;
+    }
+
+    /**
+     * ASCII case-insensitive prefix match; prefix must be lower case (or not a letter).
+     */
+    private static boolean startsWith(byte[] bytes, int from, String prefix) {
+        if (from + prefix.length() > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            int b = bytes[from + i];
+            if (b >= 'A' && b <= 'Z' && prefix.charAt(i) >= 'a') {
+                b += 'a' - 'A';
+            }
+            if (b != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private enum State {
+        IDLE,
+        CONNECTING,
+        WRITING,
+        READING
+    }
+
+    private static final class Connection {
+        final byte[] head = new byte[MAX_HEAD];
+        SocketChannel channel;
+        SelectionKey key;
+        State state = State.IDLE;
+        long nextStart;
+        long intended;
+        long startedAt;
+        int path;
+        ByteBuffer request;
+        int headLength;
+        boolean headDone;
+        long bodyRemaining;
+        boolean closeAfter;
+        int status;
+    }
+}
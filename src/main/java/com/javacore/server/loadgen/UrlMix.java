@@ -0,0 +1,101 @@
+package com.javacore.server.loadgen;
+
+import com.javacore.server.topic.JavaCoreTopic;
+import com.javacore.server.topic.TopicRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted choice of request paths, parsed from "group=weight,..." where a group is
+ * topics (every registered topic page), static (landing page, CSS, JS, favicon), metrics
+ * (/api/metrics and /metrics) or a single path starting with '/'. A group's weight is shared
+ * evenly by its paths.
+ */
+final class UrlMix {
+
+    private static final List<String> STATIC = List.of("/", "/css/style.css", "/js/landing.js", "/favicon.svg");
+    private static final List<String> METRICS = List.of("/api/metrics", "/metrics");
+
+    private final List<String> paths = new ArrayList<>();
+    private final List<String> groups = new ArrayList<>();
+    private double[] cumulative = new double[0];
+
+    /**
+     * @throws IllegalArgumentException if the spec names an unknown group or has no positive weight
+     */
+    UrlMix(String spec) {
+        List<Double> weights = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int equals = trimmed.lastIndexOf('=');
+            String group = equals > 0 ? trimmed.substring(0, equals).trim() : trimmed;
+            double weight;
+            try {
+                weight = equals > 0 ? Double.parseDouble(trimmed.substring(equals + 1).trim()) : 1;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight in URL mix: " + trimmed);
+            }
+            if (weight <= 0) {
+                continue;
+            }
+            List<String> groupPaths = pathsOf(group);
+            for (String path : groupPaths) {
+                paths.add(path);
+                groups.add(group);
+                weights.add(weight / groupPaths.size());
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("URL mix has no paths: " + spec);
+        }
+        cumulative = new double[weights.size()];
+        double total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += weights.get(i);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    private static List<String> pathsOf(String group) {
+        if (group.startsWith("/")) {
+            return List.of(group);
+        }
+        return switch (group) {
+            case "topics" -> TopicRegistry.getTopicsInDisplayOrder().stream()
+                    .map(JavaCoreTopic::getSlug)
+                    .map(slug -> "/topics/" + slug)
+                    .toList();
+            case "static" -> STATIC;
+            case "metrics" -> METRICS;
+            default -> throw new IllegalArgumentException("Unknown URL group: " + group);
+        };
+    }
+
+    List<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Group the path at index came from.
+     */
+    String group(int index) {
+        return groups.get(index);
+    }
+
+    /**
+     * Index into paths() of the next request.
+     */
+    int pick(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+}
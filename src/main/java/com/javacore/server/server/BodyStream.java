@@ -0,0 +1,72 @@
+package com.javacore.server.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+
+/**
+ * Response body produced one chunk at a time, for bodies too large or too slow to build up front.
+ * The reactor calls next() on its own thread each time the socket has taken the previous chunk,
+ * so a slow client slows the producer down and only one chunk is held at a time. Sent with
+ * Content-Length when the length is known, otherwise with Transfer-Encoding: chunked.
+ * <p>
+ * next() runs on the selector thread and must not block for long. A stream whose data arrives
+ * later (e.g. server-sent events) returns {@link #NOT_READY}; the reactor then stops polling it
+ * until the stream invokes the callback passed to {@link #setResumeCallback}.
+ */
+@FunctionalInterface
+public interface BodyStream extends AutoCloseable {
+
+    /**
+     * Returned by next() when no data is available yet. Compared by identity.
+     */
+    ByteBuffer NOT_READY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    /**
+     * @return the next chunk, {@link #NOT_READY}, or null at the end of the body. Empty chunks
+     * are skipped. The stream may reuse the returned buffer once next() is called again.
+     */
+    ByteBuffer next() throws IOException;
+
+    /**
+     * Called by the reactor before the first next(). A stream that returns NOT_READY calls resume
+     * (from any thread) once it has data; calls while the stream is being polled are harmless.
+     */
+    default void setResumeCallback(Runnable resume) {
+    }
+
+    /**
+     * Called once the body has been sent or the connection was closed.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Streams the given chunks in order.
+     */
+    static BodyStream of(Iterator<ByteBuffer> chunks) {
+        return () -> chunks.hasNext() ? chunks.next() : null;
+    }
+
+    /**
+     * Streams a channel through one reused buffer of chunkSize bytes; closes the channel at the end.
+     */
+    static BodyStream of(ReadableByteChannel channel, int chunkSize) {
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        return new BodyStream() {
+            @Override
+            public ByteBuffer next() throws IOException {
+                buffer.clear();
+                int read = channel.read(buffer);
+                return read < 0 ? null : buffer.flip();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.javacore.server.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of fixed-size direct ByteBuffers for one reactor thread.
+ * Buffers are carved from larger direct slabs, borrowed for a read or write and returned afterwards,
+ * so steady-state I/O allocates nothing and the JDK never copies through temporary direct buffers.
+ * <p>
+ * Not thread-safe: acquire and release only from the owning reactor thread.
+ * Counters are volatile so other threads (metrics) can read them.
+ */
+public final class BufferPool {
+
+    private static final int BUFFERS_PER_SLAB = 16;
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private int allocated;
+
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long inUse;
+
+    /**
+     * @param bufferSize capacity of each buffer in bytes
+     * @param maxBuffers max buffers kept by the pool; beyond this, misses allocate throw-away buffers
+     */
+    public BufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * Returns a cleared buffer of bufferSize capacity.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer != null) {
+            hits++;
+        } else {
+            misses++;
+            buffer = allocate();
+        }
+        inUse++;
+        return buffer.clear();
+    }
+
+    /**
+     * Gives a buffer back. Buffers over the pool limit are dropped and left to the GC.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        inUse--;
+        if (free.size() < maxBuffers && buffer.isDirect() && buffer.capacity() == bufferSize) {
+            free.push(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public Stats stats() {
+        return new Stats(hits, misses, inUse);
+    }
+
+    /**
+     * Grows the pool by one slab while under the limit, otherwise allocates a single buffer.
+     */
+    private ByteBuffer allocate() {
+        if (allocated + BUFFERS_PER_SLAB > maxBuffers) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(bufferSize * BUFFERS_PER_SLAB);
+        for (int i = 1; i < BUFFERS_PER_SLAB; i++) {
+            free.push(slab.position(i * bufferSize).limit((i + 1) * bufferSize).slice());
+            slab.clear();
+        }
+        allocated += BUFFERS_PER_SLAB;
+        return slab.position(0).limit(bufferSize).slice();
+    }
+
+    /**
+     * Point-in-time counters. hits + misses is the number of acquire() calls.
+     */
+    public record Stats(long hits, long misses, long inUse) {
+
+        public Stats plus(Stats other) {
+            return new Stats(hits + other.hits, misses + other.misses, inUse + other.inUse);
+        }
+    }
+}
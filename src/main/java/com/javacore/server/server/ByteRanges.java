@@ -0,0 +1,197 @@
+package com.javacore.server.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Byte-range requests (RFC 9110 section 14): Range / If-Range evaluation and 206 / 416 responses.
+ * Ranges are served as slices of the representation's body buffer or file; the bytes are never copied.
+ */
+public final class ByteRanges {
+
+    /** More ranges than this are treated as abuse and the full representation is sent. */
+    private static final int MAX_RANGES = 16;
+    private static final String BOUNDARY = "range_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Answers a Range request from body if one applies.
+     *
+     * @param body            full representation (not consumed)
+     * @param contentType     Content-Type of the representation
+     * @param contentEncoding Content-Encoding of the representation, or null
+     * @param validators      validators of the representation, for If-Range and the response headers
+     * @return true if res now holds a 206 or 416; false to send the full representation
+     */
+    public static boolean respond(HttpRequest req, HttpResponse res, ByteBuffer body, String contentType,
+                                  String contentEncoding, Validators validators) {
+        long length = body.remaining();
+        List<long[]> ranges = applicableRanges(req, length, validators);
+        if (ranges == null) {
+            return false;
+        }
+        if (ranges.isEmpty()) {
+            unsatisfiable(res, length, validators);
+            return true;
+        }
+
+        partial(res, validators);
+        if (contentEncoding != null) {
+            res.setHeader("Content-Encoding", contentEncoding);
+        }
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            res.setContentType(contentType);
+            res.setHeader("Content-Range", contentRange(range, length));
+            res.setBodyBuffers(slice(body, range));
+            return true;
+        }
+
+        res.setContentType("multipart/byteranges; boundary=" + BOUNDARY);
+        ByteBuffer[] parts = new ByteBuffer[ranges.size() * 2 + 1];
+        int i = 0;
+        for (long[] range : ranges) {
+            String partHead = "\r\n--" + BOUNDARY + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: " + contentRange(range, length) + "\r\n\r\n";
+            parts[i++] = ByteBuffer.wrap(partHead.getBytes(StandardCharsets.US_ASCII));
+            parts[i++] = slice(body, range);
+        }
+        parts[i] = ByteBuffer.wrap(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        res.setBodyBuffers(parts);
+        return true;
+    }
+
+    /**
+     * Answers a Range request on a file sent with transferTo. Only single ranges are served
+     * from the file; several ranges are ignored and the full file is sent.
+     *
+     * @param file        full representation
+     * @param contentType Content-Type of the representation
+     * @param validators  validators of the representation, for If-Range and the response headers
+     * @return true if res now holds a 206 or 416; false to send the full representation
+     */
+    public static boolean respond(HttpRequest req, HttpResponse res, FileRegion file, String contentType,
+                                  Validators validators) {
+        long length = file.count();
+        List<long[]> ranges = applicableRanges(req, length, validators);
+        if (ranges == null || ranges.size() > 1) {
+            return false;
+        }
+        if (ranges.isEmpty()) {
+            unsatisfiable(res, length, validators);
+            return true;
+        }
+        long[] range = ranges.get(0);
+        partial(res, validators);
+        res.setContentType(contentType);
+        res.setHeader("Content-Range", contentRange(range, length));
+        res.setBodyFile(file.slice(range[0], range[1] - range[0] + 1));
+        return true;
+    }
+
+    /**
+     * @return ranges to serve (empty for 416), or null if the request has no applicable Range
+     */
+    private static List<long[]> applicableRanges(HttpRequest req, long length, Validators validators) {
+        String rangeHeader = req.getHeader("Range");
+        if (rangeHeader == null || !"GET".equals(req.method()) || !ifRangeMatches(req, validators)) {
+            return null;
+        }
+        return parse(rangeHeader, length);
+    }
+
+    private static void unsatisfiable(HttpResponse res, long length, Validators validators) {
+        res.removeHeader("Content-Type");
+        validators.applyTo(res);
+        res.setHeader("Accept-Ranges", "bytes");
+        res.setStatusCode(416);
+        res.setHeader("Content-Range", "bytes */" + length);
+    }
+
+    private static void partial(HttpResponse res, Validators validators) {
+        validators.applyTo(res);
+        res.setHeader("Accept-Ranges", "bytes");
+        res.setStatusCode(206);
+    }
+
+    /**
+     * Parses "bytes=a-b, c-, -n" into inclusive [first, last] pairs clamped to length.
+     *
+     * @return satisfiable ranges (empty if none is satisfiable), or null if the header is
+     * malformed, uses another unit or has too many ranges (the Range header is then ignored)
+     */
+    static List<long[]> parse(String header, long length) {
+        String value = header.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = value.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            String s = spec.trim();
+            int dash = s.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long first;
+                long last;
+                if (dash == 0) {
+                    long suffix = Long.parseLong(s.substring(1).trim());
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    first = Math.max(0, length - suffix);
+                    last = length - 1;
+                } else {
+                    first = Long.parseLong(s.substring(0, dash).trim());
+                    String end = s.substring(dash + 1).trim();
+                    last = end.isEmpty() ? length - 1 : Math.min(Long.parseLong(end), length - 1);
+                    if (!end.isEmpty() && Long.parseLong(end) < first) {
+                        return null;
+                    }
+                }
+                if (first < length && first <= last) {
+                    ranges.add(new long[]{first, last});
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * If-Range holds an entity tag (strong comparison) or an HTTP date (exact match with
+     * Last-Modified). Without If-Range the Range applies unconditionally.
+     */
+    private static boolean ifRangeMatches(HttpRequest req, Validators validators) {
+        String ifRange = req.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(validators.getEtag());
+        }
+        return Validators.parseHttpDate(value) == validators.getLastModifiedSeconds();
+    }
+
+    private static ByteBuffer slice(ByteBuffer body, long[] range) {
+        int start = body.position() + (int) range[0];
+        return body.duplicate().position(start).limit(start + (int) (range[1] - range[0] + 1)).slice();
+    }
+
+    private static String contentRange(long[] range, long length) {
+        return "bytes " + range[0] + "-" + range[1] + "/" + length;
+    }
+}
@@ -0,0 +1,60 @@
+package com.javacore.server.server;
+
+/**
+ * Evaluates If-None-Match / If-Modified-Since (RFC 9110 section 13) against a handler's validators.
+ * Used by the reactor before running a handler, so a match costs no rendering or I/O.
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * If-None-Match takes precedence; If-Modified-Since is only checked when it is absent.
+     * Applies to GET and HEAD only.
+     */
+    public static boolean isNotModified(HttpRequest req, Validators validators) {
+        if (validators == null || !("GET".equals(req.method()) || "HEAD".equals(req.method()))) {
+            return false;
+        }
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, validators.getEtag());
+        }
+        String ifModifiedSince = req.getHeader("If-Modified-Since");
+        if (ifModifiedSince != null) {
+            long since = Validators.parseHttpDate(ifModifiedSince);
+            return since >= 0 && validators.getLastModifiedSeconds() <= since;
+        }
+        return false;
+    }
+
+    /**
+     * Body-less 304 carrying the validators.
+     */
+    public static HttpResponse notModified(Validators validators) {
+        HttpResponse res = new HttpResponse();
+        res.setStatusCode(304);
+        res.removeHeader("Content-Type");
+        validators.applyTo(res);
+        return res;
+    }
+
+    /**
+     * Weak comparison over a comma-separated list of entity tags, as If-None-Match requires.
+     */
+    static boolean matchesAny(String header, String etag) {
+        String target = opaque(etag);
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
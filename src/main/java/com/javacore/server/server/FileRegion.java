@@ -0,0 +1,15 @@
+package com.javacore.server.server;
+
+import java.nio.file.Path;
+
+/**
+ * A byte range of a file to be sent as (part of) a response body.
+ * The reactor opens the file when the region reaches the head of the write queue and streams it
+ * with FileChannel.transferTo, so the bytes go from page cache to socket without entering the heap.
+ */
+public record FileRegion(Path path, long position, long count) {
+
+    public FileRegion slice(long offset, long length) {
+        return new FileRegion(path, position + offset, length);
+    }
+}
@@ -55,6 +55,7 @@ public final class HttpParser {
             }
             String method = parts[0];
             String path = parts[1];
+            String version = parts.length > 2 ? parts[2].trim() : null;
 
             Map<String, String> headers = new HashMap<>();
             String line;
@@ -89,7 +90,7 @@ public final class HttpParser {
                 }
             }
 
-            return HttpRequest.of(method, path, headers, body);
+            return HttpRequest.of(method, path, version, headers, body);
         } catch (IOException e) {
             throw new HttpParseException("Parse error: " + e.getMessage());
         }
@@ -126,8 +127,25 @@ public final class HttpParser {
     }
 
     public static class HttpParseException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
         public HttpParseException(String message) {
+            this(message, 400);
+        }
+
+        public HttpParseException(String message, int statusCode) {
             super(message);
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * HTTP status to answer with: 400 for malformed input, 413 when limits are exceeded.
+         */
+        public int getStatusCode() {
+            return statusCode;
         }
     }
 }
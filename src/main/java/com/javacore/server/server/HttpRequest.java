@@ -6,14 +6,23 @@ import java.util.Map;
 /**
  * Immutable HTTP request model.
  * Path is normalized (query string removed) for routing.
+ * Path parameters are filled in by the Router once the request has been matched.
  */
 public record HttpRequest(
         String method,
         String path,
+        String version,
         Map<String, String> headers,
-        byte[] body
+        byte[] body,
+        Map<String, String> pathParams
 ) {
     private static final int QUERY_INDEX = -1;
+    private static final String HTTP_1_0 = "HTTP/1.0";
+    private static final String DEFAULT_VERSION = "HTTP/1.1";
+
+    public HttpRequest(String method, String path, String version, Map<String, String> headers, byte[] body) {
+        this(method, path, version, headers, body, Collections.emptyMap());
+    }
 
     /**
      * Returns path without query string for routing.
@@ -26,10 +35,70 @@ public record HttpRequest(
         return path.substring(0, queryStart);
     }
 
+    /**
+     * Returns header value by name, ignoring case (HTTP header names are case-insensitive).
+     */
+    public String getHeader(String name) {
+        String value = headers.get(name);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of a {name} or wildcard route segment, or null if the route has none.
+     */
+    public String pathParam(String name) {
+        return pathParams.get(name);
+    }
+
+    /**
+     * Copy of this request carrying the parameters extracted by the matched route.
+     */
+    public HttpRequest withPathParams(Map<String, String> params) {
+        return new HttpRequest(method, path, version, headers, body, params);
+    }
+
+    /**
+     * HTTP/1.1 keeps the connection open unless the client sends Connection: close.
+     * HTTP/1.0 closes it unless the client sends Connection: keep-alive.
+     * Connection is a comma-separated token list (e.g. "keep-alive, Upgrade"); tokens match case-insensitively.
+     */
+    public boolean isKeepAlive() {
+        String connection = getHeader("Connection");
+        if (HTTP_1_0.equals(version)) {
+            return hasToken(connection, "keep-alive");
+        }
+        return !hasToken(connection, "close");
+    }
+
+    private static boolean hasToken(String list, String token) {
+        if (list == null) {
+            return false;
+        }
+        for (String element : list.split(",")) {
+            if (element.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static HttpRequest of(String method, String path, Map<String, String> headers, byte[] body) {
+        return of(method, path, DEFAULT_VERSION, headers, body);
+    }
+
+    public static HttpRequest of(String method, String path, String version, Map<String, String> headers, byte[] body) {
         return new HttpRequest(
                 method != null ? method : "GET",
                 path != null ? path : "/",
+                version != null ? version : DEFAULT_VERSION,
                 headers != null ? Map.copyOf(headers) : Collections.emptyMap(),
                 body != null ? body : new byte[0]
         );
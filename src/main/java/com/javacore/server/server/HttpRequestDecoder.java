@@ -0,0 +1,298 @@
+package com.javacore.server.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Incremental, resumable HTTP/1.1 request parser for one connection.
+ * Bytes are appended with feed(); next() returns each complete request in order, or null when more
+ * bytes are needed. Parsing resumes where the previous call stopped, so every byte is scanned once
+ * no matter how many packets a request arrives in. Strings are built directly from offsets into the
+ * buffer; nothing is re-decoded or copied except the request body.
+ */
+public final class HttpRequestDecoder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final int MAX_HEADERS = 64;
+
+    private enum State {
+        REQUEST_LINE,
+        HEADERS,
+        BODY
+    }
+
+    private final int maxRequestSize;
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    /** First byte of the request being parsed. */
+    private int start;
+    /** First byte of the current, not yet complete line (or of the body in BODY state). */
+    private int pos;
+    /** Where the search for the next line feed resumes. */
+    private int scan;
+    /** End of buffered bytes. */
+    private int limit;
+
+    private State state = State.REQUEST_LINE;
+    private String method;
+    private String target;
+    private String version;
+    private Map<String, String> headers;
+    private int contentLength;
+
+    /**
+     * @param maxRequestSize max bytes of request line + headers + body; larger requests fail with 413
+     */
+    public HttpRequestDecoder(int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /**
+     * Appends all remaining bytes of src. Source position is advanced to its limit.
+     */
+    public void feed(ByteBuffer src) {
+        int n = src.remaining();
+        ensureCapacity(n);
+        src.get(buf, limit, n);
+        limit += n;
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buf, limit, length);
+        limit += length;
+    }
+
+    /**
+     * Number of buffered bytes not yet returned as part of a request.
+     */
+    public int buffered() {
+        return limit - start;
+    }
+
+    /**
+     * Parses the next complete request from the buffered bytes.
+     *
+     * @return the request, or null if it is not complete yet
+     * @throws HttpParser.HttpParseException on malformed input (400) or exceeded limits (413)
+     */
+    public HttpRequest next() throws HttpParser.HttpParseException {
+        while (true) {
+            switch (state) {
+                case REQUEST_LINE -> {
+                    int eol = findLineEnd();
+                    if (eol < 0) {
+                        return null;
+                    }
+                    int lineEnd = trimCr(pos, eol);
+                    if (lineEnd == pos) {
+                        // Tolerate empty lines before the request line (RFC 9112 section 2.2)
+                        consumeLine(eol);
+                        start = pos;
+                        continue;
+                    }
+                    parseRequestLine(pos, lineEnd);
+                    consumeLine(eol);
+                    headers = new HashMap<>();
+                    state = State.HEADERS;
+                }
+                case HEADERS -> {
+                    int eol = findLineEnd();
+                    if (eol < 0) {
+                        return null;
+                    }
+                    int lineEnd = trimCr(pos, eol);
+                    if (lineEnd == pos) {
+                        consumeLine(eol);
+                        contentLength = parseContentLength();
+                        if (contentLength > maxRequestSize - (pos - start)) {
+                            throw new HttpParser.HttpParseException("Request too large", 413);
+                        }
+                        state = State.BODY;
+                        continue;
+                    }
+                    parseHeader(pos, lineEnd);
+                    consumeLine(eol);
+                }
+                case BODY -> {
+                    if (limit - pos < contentLength) {
+                        if (limit - start > maxRequestSize) {
+                            throw new HttpParser.HttpParseException("Request too large", 413);
+                        }
+                        return null;
+                    }
+                    byte[] body = contentLength == 0
+                            ? new byte[0]
+                            : Arrays.copyOfRange(buf, pos, pos + contentLength);
+                    HttpRequest request = HttpRequest.of(method, target, version, headers, body);
+                    pos += contentLength;
+                    finishRequest();
+                    return request;
+                }
+                default -> throw new IllegalStateException("Unknown state " + state);
+            }
+        }
+    }
+
+    /**
+     * Scans for the next line feed from where the previous scan stopped.
+     *
+     * @return index of '\n', or -1 if the line is incomplete
+     */
+    private int findLineEnd() throws HttpParser.HttpParseException {
+        byte[] b = buf;
+        for (int i = scan; i < limit; i++) {
+            if (b[i] == '\n') {
+                return i;
+            }
+        }
+        scan = limit;
+        if (limit - pos > MAX_LINE_LENGTH) {
+            throw new HttpParser.HttpParseException("Line too long");
+        }
+        if (limit - start > maxRequestSize) {
+            throw new HttpParser.HttpParseException("Request too large", 413);
+        }
+        return -1;
+    }
+
+    private int trimCr(int from, int eol) throws HttpParser.HttpParseException {
+        if (eol - from > MAX_LINE_LENGTH) {
+            throw new HttpParser.HttpParseException("Line too long");
+        }
+        return eol > from && buf[eol - 1] == '\r' ? eol - 1 : eol;
+    }
+
+    private void consumeLine(int eol) {
+        pos = eol + 1;
+        scan = pos;
+    }
+
+    private void parseRequestLine(int from, int to) throws HttpParser.HttpParseException {
+        int methodEnd = indexOf(' ', from, to);
+        if (methodEnd <= from) {
+            throw new HttpParser.HttpParseException("Invalid request line: " + decode(from, to));
+        }
+        int targetStart = skipSpaces(methodEnd, to);
+        int targetEnd = indexOf(' ', targetStart, to);
+        if (targetEnd < 0) {
+            targetEnd = to;
+        }
+        if (targetEnd == targetStart) {
+            throw new HttpParser.HttpParseException("Invalid request line: " + decode(from, to));
+        }
+        int versionStart = skipSpaces(targetEnd, to);
+        method = decode(from, methodEnd);
+        target = decode(targetStart, targetEnd);
+        version = versionStart < to ? decode(versionStart, trimEnd(versionStart, to)) : null;
+    }
+
+    private void parseHeader(int from, int to) throws HttpParser.HttpParseException {
+        if (headers.size() >= MAX_HEADERS) {
+            throw new HttpParser.HttpParseException("Too many headers");
+        }
+        int colon = indexOf(':', from, to);
+        if (colon <= from) {
+            return;
+        }
+        int nameStart = skipSpaces(from, colon);
+        int nameEnd = trimEnd(nameStart, colon);
+        int valueStart = skipSpaces(colon + 1, to);
+        int valueEnd = trimEnd(valueStart, to);
+        if (nameEnd > nameStart) {
+            headers.put(decode(nameStart, nameEnd), decode(valueStart, valueEnd));
+        }
+    }
+
+    private int parseContentLength() throws HttpParser.HttpParseException {
+        String value = headers.get("Content-Length");
+        if (value == null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase("Content-Length")) {
+                    value = entry.getValue();
+                    break;
+                }
+            }
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            int length = Integer.parseInt(value);
+            if (length < 0) {
+                throw new HttpParser.HttpParseException("Invalid Content-Length: " + value);
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new HttpParser.HttpParseException("Invalid Content-Length: " + value);
+        }
+    }
+
+    private void finishRequest() {
+        state = State.REQUEST_LINE;
+        method = null;
+        target = null;
+        version = null;
+        headers = null;
+        contentLength = 0;
+        start = pos;
+        scan = pos;
+        if (start == limit) {
+            start = 0;
+            pos = 0;
+            scan = 0;
+            limit = 0;
+        }
+    }
+
+    /**
+     * Makes room for extra bytes, first by moving the unparsed tail to the front, then by growing.
+     */
+    private void ensureCapacity(int extra) {
+        if (limit + extra <= buf.length) {
+            return;
+        }
+        if (start > 0) {
+            System.arraycopy(buf, start, buf, 0, limit - start);
+            pos -= start;
+            scan -= start;
+            limit -= start;
+            start = 0;
+        }
+        if (limit + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, limit + extra));
+        }
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipSpaces(int from, int to) {
+        int i = from;
+        while (i < to && (buf[i] == ' ' || buf[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private int trimEnd(int from, int to) {
+        int i = to;
+        while (i > from && (buf[i - 1] == ' ' || buf[i - 1] == '\t')) {
+            i--;
+        }
+        return i;
+    }
+
+    private String decode(int from, int to) {
+        return new String(buf, from, to - from, StandardCharsets.UTF_8);
+    }
+}
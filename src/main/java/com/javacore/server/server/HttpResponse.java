@@ -1,5 +1,6 @@
 package com.javacore.server.server;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -17,6 +18,11 @@ public class HttpResponse {
     private String statusMessage = "OK";
     private final Map<String, String> headers = new HashMap<>();
     private byte[] body = new byte[0];
+    private ByteBuffer[] bodyBuffers;
+    private FileRegion bodyFile;
+    private BodyStream bodyStream;
+    private long bodyStreamLength = -1;
+    private PrebuiltResponse prebuilt;
 
     public HttpResponse() {
         setContentType("text/html; charset=utf-8");
@@ -44,12 +50,27 @@ public class HttpResponse {
         return Map.copyOf(headers);
     }
 
+    /**
+     * Live header map for the response encoder; avoids the copy made by getHeaders().
+     */
+    Map<String, String> headersForEncoding() {
+        return headers;
+    }
+
+    public boolean hasHeader(String name) {
+        return headers.containsKey(name);
+    }
+
     public void setHeader(String name, String value) {
         if (name != null && value != null) {
             headers.put(name, value);
         }
     }
 
+    public void removeHeader(String name) {
+        headers.remove(name);
+    }
+
     public void setContentType(String contentType) {
         setHeader("Content-Type", contentType);
     }
@@ -59,24 +80,129 @@ public class HttpResponse {
     }
 
     public void setBody(byte[] body) {
+        clearBody();
         this.body = body != null ? body : new byte[0];
     }
 
     public void setBody(String text, Charset charset) {
-        this.body = text != null ? text.getBytes(charset) : new byte[0];
+        setBody(text != null ? text.getBytes(charset) : null);
+    }
+
+    /**
+     * Sends the remaining bytes of buffers, in order, as the body without copying them
+     * (e.g. slices of a cached file). getBody() is empty while buffers are set.
+     */
+    public void setBodyBuffers(ByteBuffer... buffers) {
+        clearBody();
+        this.bodyBuffers = buffers;
+    }
+
+    /**
+     * Sends a file region as the body; the reactor streams it with FileChannel.transferTo.
+     * getBody() is empty while a file body is set.
+     */
+    public void setBodyFile(FileRegion file) {
+        clearBody();
+        this.bodyFile = file;
+    }
+
+    /**
+     * Streams the body chunk by chunk with Transfer-Encoding: chunked (HTTP/1.0 clients get
+     * the body delimited by connection close instead). getBody() is empty while a stream is set.
+     */
+    public void setBodyStream(BodyStream stream) {
+        setBodyStream(stream, -1);
+    }
+
+    /**
+     * @param length exact number of bytes the stream produces, sent as Content-Length; -1 if unknown
+     */
+    public void setBodyStream(BodyStream stream, long length) {
+        clearBody();
+        this.bodyStream = stream;
+        this.bodyStreamLength = stream != null ? length : -1;
+    }
+
+    /**
+     * Stream body set with setBodyStream, or null.
+     */
+    public BodyStream getBodyStream() {
+        return bodyStream;
+    }
+
+    /**
+     * File body set with setBodyFile, or null.
+     */
+    public FileRegion getBodyFile() {
+        return bodyFile;
+    }
+
+    /**
+     * Body buffers set with setBodyBuffers, or null if the body is a byte array.
+     */
+    public ByteBuffer[] getBodyBuffers() {
+        return bodyBuffers;
+    }
+
+    /**
+     * @return body size in bytes, or -1 for a stream of unknown length
+     */
+    public long getBodyLength() {
+        if (bodyStream != null) {
+            return bodyStreamLength;
+        }
+        if (bodyFile != null) {
+            return bodyFile.count();
+        }
+        if (bodyBuffers == null) {
+            return body.length;
+        }
+        long length = 0;
+        for (ByteBuffer buffer : bodyBuffers) {
+            length += buffer.remaining();
+        }
+        return length;
     }
 
     public void setBody(String text) {
         setBody(text, DEFAULT_CHARSET);
     }
 
-    private static String getDefaultStatusMessage(int code) {
+    private void clearBody() {
+        this.body = new byte[0];
+        this.bodyBuffers = null;
+        this.bodyFile = null;
+        this.bodyStream = null;
+        this.bodyStreamLength = -1;
+    }
+
+    public PrebuiltResponse getPrebuilt() {
+        return prebuilt;
+    }
+
+    /**
+     * Sends a ready-made response instead of this object's status, headers and body.
+     */
+    public void setPrebuilt(PrebuiltResponse prebuilt) {
+        this.prebuilt = prebuilt;
+        if (prebuilt != null) {
+            this.statusCode = prebuilt.getStatusCode();
+            this.statusMessage = getDefaultStatusMessage(statusCode);
+        }
+    }
+
+    static String getDefaultStatusMessage(int code) {
         return switch (code) {
             case 200 -> "OK";
+            case 206 -> "Partial Content";
+            case 304 -> "Not Modified";
             case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
             case 500 -> "Internal Server Error";
             case 400 -> "Bad Request";
             case 413 -> "Payload Too Large";
+            case 416 -> "Range Not Satisfiable";
+            case 503 -> "Service Unavailable";
             default -> "Unknown";
         };
     }
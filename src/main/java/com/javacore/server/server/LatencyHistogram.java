@@ -0,0 +1,205 @@
+package com.javacore.server.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram over a sliding time window, in microseconds.
+ * <p>
+ * Buckets are log-linear like HdrHistogram: 16 linear sub-buckets per power of two, so a recorded
+ * value is reported within 6.25% (values up to ~67 s; larger ones are clamped). Counts are striped
+ * by thread, one stripe per core (rounded up to a power of two, at most 64): threads take stripes
+ * round-robin on first use, so each reactor thread records into its own slots and a snapshot
+ * merges them.
+ * The window is a ring of intervals; recording into a new interval replaces the expired one with a
+ * CAS, and a snapshot merges the intervals still inside the window. Recording never allocates,
+ * except once per interval rotation. A cumulative count and sum since creation are kept as well,
+ * for monitoring systems that compute their own rates.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_MICROS = (1L << 26) - 1;
+    private static final int BUCKETS = bucketIndex(MAX_MICROS) + 1;
+    /** Per-stripe block: the buckets, the max, and padding so stripes do not share a cache line. */
+    private static final int STRIPE_LENGTH = BUCKETS + 1 + 7;
+    private static final int MAX_STRIPES = 64;
+    private static final int STRIPES = Math.min(MAX_STRIPES, Integer.highestOneBit(
+            Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+    private static final AtomicInteger NEXT_STRIPE = new AtomicInteger();
+    private static final ThreadLocal<Integer> STRIPE_BASE = ThreadLocal.withInitial(
+            () -> (NEXT_STRIPE.getAndIncrement() & (STRIPES - 1)) * STRIPE_LENGTH);
+
+    private final long intervalNanos;
+    private final AtomicReferenceArray<Interval> intervals;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    /**
+     * @param windowMillis length of the sliding window
+     * @param intervals    number of intervals the window is split into; values age out one
+     *                     interval at a time
+     */
+    public LatencyHistogram(long windowMillis, int intervals) {
+        if (windowMillis <= 0 || intervals <= 0) {
+            throw new IllegalArgumentException("Window and interval count must be positive");
+        }
+        this.intervalNanos = windowMillis * 1_000_000 / intervals;
+        this.intervals = new AtomicReferenceArray<>(intervals);
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos    duration in nanoseconds
+     * @param nowNanos current System.nanoTime(), which places the value in the window
+     */
+    public void record(long nanos, long nowNanos) {
+        long micros = Math.min(Math.max(0, nanos / 1000), MAX_MICROS);
+        totalCount.increment();
+        totalMicros.add(micros);
+        Interval interval = interval(Math.floorDiv(nowNanos, intervalNanos));
+        int base = STRIPE_BASE.get();
+        interval.counts.incrementAndGet(base + bucketIndex(micros));
+        int maxSlot = base + BUCKETS;
+        long max = interval.counts.get(maxSlot);
+        while (micros > max && !interval.counts.compareAndSet(maxSlot, max, micros)) {
+            max = interval.counts.get(maxSlot);
+        }
+    }
+
+    /**
+     * Merges the intervals inside the window ending now.
+     */
+    public Snapshot snapshot() {
+        long epoch = Math.floorDiv(System.nanoTime(), intervalNanos);
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < intervals.length(); i++) {
+            Interval interval = intervals.get(i);
+            if (interval == null || interval.epoch <= epoch - intervals.length() || interval.epoch > epoch) {
+                continue;
+            }
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                int base = stripe * STRIPE_LENGTH;
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    long count = interval.counts.get(base + bucket);
+                    counts[bucket] += count;
+                    total += count;
+                }
+                max = Math.max(max, interval.counts.get(base + BUCKETS));
+            }
+        }
+        return new Snapshot(counts, total, max, totalCount.sum(), totalMicros.sum());
+    }
+
+    private Interval interval(long epoch) {
+        int slot = (int) Math.floorMod(epoch, (long) intervals.length());
+        Interval interval = intervals.get(slot);
+        while (interval == null || interval.epoch < epoch) {
+            Interval fresh = new Interval(epoch);
+            if (intervals.compareAndSet(slot, interval, fresh)) {
+                return fresh;
+            }
+            interval = intervals.get(slot);
+        }
+        // A late recorder whose interval was already rotated out counts into the newer one.
+        return interval;
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (micros >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value that falls into the bucket.
+     */
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private static final class Interval {
+        final long epoch;
+        final AtomicLongArray counts = new AtomicLongArray(STRIPES * STRIPE_LENGTH);
+
+        Interval(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * Merged counts of one window, plus the cumulative totals; values in microseconds.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+        private final long totalCount;
+        private final long totalMicros;
+
+        private Snapshot(long[] counts, long count, long max, long totalCount, long totalMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+            this.totalCount = totalCount;
+            this.totalMicros = totalMicros;
+        }
+
+        /**
+         * Values recorded within the window.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Values recorded since the histogram was created.
+         */
+        public long totalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Sum of all values recorded since the histogram was created.
+         */
+        public long totalMicros() {
+            return totalMicros;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        /**
+         * @param percentile 0..100, e.g. 99.9
+         * @return the value at or below which that share of recorded values falls (0 if empty)
+         */
+        public long valueAt(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return Math.min(highestValue(bucket), max);
+                }
+            }
+            return max;
+        }
+    }
+}
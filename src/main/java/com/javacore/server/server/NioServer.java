@@ -1,37 +1,55 @@
 package com.javacore.server.server;
 
-import com.javacore.server.handler.HttpHandler;
-
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * NIO-based HTTP server using Selector for multiplexing connections.
- * Accepts connections, reads request, routes to handler, writes response, closes connection.
+ * The calling thread accepts connections and hands them round-robin to a pool of worker Reactors,
+ * each running its own Selector on its own thread (one per core by default).
+ * Handlers run on the reactor thread, or on a shared executor when dispatch mode is EXECUTOR.
+ * Connections are kept alive (HTTP/1.1) up to the configured request count and idle timeout;
+ * pipelined requests are answered in order.
  */
 public class NioServer {
 
-    private static final int BUFFER_SIZE = 8192;
-    private static final int MAX_REQUEST_SIZE = 64 * 1024;
-
     private final int port;
     private final Router router;
+    private final ServerMetrics metrics;
+    private final ServerConfig config;
     private ServerSocketChannel serverChannel;
     private Selector selector;
+    private Reactor[] reactors = new Reactor[0];
+    private ExecutorService handlerExecutor;
+    private int nextReactor;
     private volatile boolean running;
 
     public NioServer(int port, Router router) {
+        this(port, router, ServerConfig.defaults());
+    }
+
+    public NioServer(int port, Router router, ServerConfig config) {
+        this(port, router, config, new ServerMetrics());
+    }
+
+    /**
+     * @param metrics receives connection and byte counters and per-route latencies
+     */
+    public NioServer(int port, Router router, ServerConfig config, ServerMetrics metrics) {
         this.port = port;
         this.router = router;
+        this.config = config;
+        this.metrics = metrics;
     }
 
     public void start() throws IOException {
@@ -42,8 +60,11 @@ public class NioServer {
         selector = Selector.open();
         serverChannel.register(selector, SelectionKey.OP_ACCEPT);
 
+        startReactors();
+        metrics.registerThread(Thread.currentThread());
+
         running = true;
-        System.out.println("Server listening on port " + port);
+        System.out.println("Server listening on port " + port + " with " + reactors.length + " worker reactor(s)");
 
         while (running) {
             int ready = selector.select(1000);
@@ -58,20 +79,8 @@ public class NioServer {
                 SelectionKey key = it.next();
                 it.remove();
 
-                if (!key.isValid()) {
-                    continue;
-                }
-
-                try {
-                    if (key.isAcceptable()) {
-                        handleAccept(key);
-                    } else if (key.isReadable()) {
-                        handleRead(key);
-                    } else if (key.isWritable()) {
-                        handleWrite(key);
-                    }
-                } catch (Exception e) {
-                    closeChannel(key);
+                if (key.isValid() && key.isAcceptable()) {
+                    handleAccept(key);
                 }
             }
         }
@@ -79,169 +88,77 @@ public class NioServer {
 
     public void stop() {
         running = false;
+        for (Reactor reactor : reactors) {
+            reactor.stop();
+        }
+        if (handlerExecutor != null) {
+            handlerExecutor.shutdown();
+        }
         if (selector != null && selector.isOpen()) {
             selector.wakeup();
         }
     }
 
-    private void handleAccept(SelectionKey key) throws IOException {
-        ServerSocketChannel server = (ServerSocketChannel) key.channel();
-        SocketChannel client = server.accept();
-        if (client == null) {
-            return;
-        }
-        client.configureBlocking(false);
-        ConnectionState state = new ConnectionState();
-        client.register(selector, SelectionKey.OP_READ, state);
-    }
-
-    private void handleRead(SelectionKey key) throws IOException {
-        SocketChannel channel = (SocketChannel) key.channel();
-        ConnectionState state = (ConnectionState) key.attachment();
-
-        int read = channel.read(state.readBuffer);
-        if (read == -1) {
-            closeChannel(key);
-            return;
-        }
-
-        state.readBuffer.flip();
-        state.accumulator.write(state.readBuffer.array(), state.readBuffer.position(), state.readBuffer.remaining());
-        state.readBuffer.clear();
-
-        byte[] bytes = state.accumulator.toByteArray();
-        if (bytes.length > MAX_REQUEST_SIZE) {
-            sendErrorAndClose(channel, 413);
-            return;
-        }
-
-        if (!state.hasParsed) {
-            int headerEnd = findHeaderEnd(bytes);
-            if (headerEnd < 0) {
-                return;
-            }
-            String contentLengthStr = extractHeader(bytes, "Content-Length");
-            int bodyLength = 0;
-            if (contentLengthStr != null) {
-                try {
-                    bodyLength = Integer.parseInt(contentLengthStr.trim());
-                } catch (NumberFormatException ignored) {
-                }
-            }
-            int expectedTotal = headerEnd + bodyLength;
-            if (bytes.length < expectedTotal) {
-                return;
-            }
-
-            try {
-                state.request = HttpParser.parse(bytes);
-                state.hasParsed = true;
-            } catch (HttpParser.HttpParseException e) {
-                sendErrorAndClose(channel, 400);
-                return;
-            }
-
-            HttpResponse response = new HttpResponse();
-            HttpHandler handler = router.route(state.request);
-            if (handler != null) {
-                handler.handle(state.request, response);
-            } else {
-                response.setStatusCode(404);
-                response.setBody("<h1>404 Not Found</h1>");
-            }
-
-            state.responseBytes = buildResponseBytes(response);
-            key.interestOps(SelectionKey.OP_WRITE);
+    private void startReactors() throws IOException {
+        if (config.getDispatchMode() == ServerConfig.DispatchMode.EXECUTOR) {
+            handlerExecutor = createHandlerExecutor();
         }
-    }
-
-    private void handleWrite(SelectionKey key) throws IOException {
-        SocketChannel channel = (SocketChannel) key.channel();
-        ConnectionState state = (ConnectionState) key.attachment();
-
-        ByteBuffer toWrite = ByteBuffer.wrap(state.responseBytes);
-        toWrite.position(state.bytesWritten);
-        int written = channel.write(toWrite);
-        state.bytesWritten += written;
-
-        if (state.bytesWritten >= state.responseBytes.length) {
-            closeChannel(key);
+        int count = config.getWorkerCount();
+        reactors = new Reactor[count];
+        for (int i = 0; i < count; i++) {
+            reactors[i] = new Reactor(router, metrics, config, handlerExecutor);
+            Thread thread = new Thread(reactors[i], "nio-worker-" + i);
+            thread.setDaemon(true);
+            metrics.registerThread(thread);
+            thread.start();
         }
     }
 
-    private void closeChannel(SelectionKey key) {
+    /**
+     * Virtual thread per task when the runtime has it (JDK 21+), otherwise a bounded daemon pool.
+     * Looked up reflectively because the build targets JDK 17.
+     */
+    private ExecutorService createHandlerExecutor() {
         try {
-            key.cancel();
-            if (key.channel().isOpen()) {
-                key.channel().close();
-            }
-        } catch (IOException ignored) {
-        }
-    }
-
-    private void sendErrorAndClose(SocketChannel channel, int statusCode) throws IOException {
-        String body = "<h1>" + statusCode + " " + (statusCode == 413 ? "Payload Too Large" : "Bad Request") + "</h1>";
-        String response = "HTTP/1.1 " + statusCode + " " + (statusCode == 413 ? "Payload Too Large" : "Bad Request") + "\r\n"
-                + "Content-Type: text/html; charset=utf-8\r\n"
-                + "Content-Length: " + body.getBytes(StandardCharsets.UTF_8).length + "\r\n"
-                + "Connection: close\r\n\r\n"
-                + body;
-        ByteBuffer buf = ByteBuffer.wrap(response.getBytes(StandardCharsets.UTF_8));
-        while (buf.hasRemaining()) {
-            channel.write(buf);
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            return Executors.newFixedThreadPool(config.getHandlerThreads(), task -> {
+                Thread thread = new Thread(task, "http-handler-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                metrics.registerThread(thread);
+                return thread;
+            });
         }
-        channel.close();
     }
 
-    private int findHeaderEnd(byte[] bytes) {
-        for (int i = 0; i <= bytes.length - 4; i++) {
-            if (bytes[i] == '\r' && bytes[i + 1] == '\n'
-                    && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
-                return i + 4;
-            }
+    /**
+     * Accepts every pending connection and assigns it to the next reactor in round-robin order.
+     */
+    private void handleAccept(SelectionKey key) throws IOException {
+        ServerSocketChannel server = (ServerSocketChannel) key.channel();
+        SocketChannel client;
+        while ((client = server.accept()) != null) {
+            metrics.connectionAccepted();
+            reactors[nextReactor].register(client);
+            nextReactor = (nextReactor + 1) % reactors.length;
         }
-        return -1;
     }
 
-    private String extractHeader(byte[] bytes, String headerName) {
-        String raw = new String(bytes, StandardCharsets.UTF_8);
-        String target = headerName + ":";
-        int idx = raw.indexOf(target);
-        if (idx < 0) {
-            return null;
-        }
-        int start = idx + target.length();
-        int end = raw.indexOf("\r\n", start);
-        if (end < 0) {
-            end = raw.length();
+    /**
+     * Buffer pool counters summed over all reactors.
+     */
+    public BufferPool.Stats bufferPoolStats() {
+        BufferPool.Stats total = new BufferPool.Stats(0, 0, 0);
+        for (Reactor reactor : reactors) {
+            total = total.plus(reactor.bufferPoolStats());
         }
-        return raw.substring(start, end).trim();
-    }
-
-    private byte[] buildResponseBytes(HttpResponse res) {
-        String statusLine = "HTTP/1.1 " + res.getStatusCode() + " " + res.getStatusMessage() + "\r\n";
-        StringBuilder headerSection = new StringBuilder();
-        res.getHeaders().forEach((name, value) ->
-                headerSection.append(name).append(": ").append(value).append("\r\n"));
-        if (!res.getHeaders().containsKey("Content-Length")) {
-            headerSection.append("Content-Length: ").append(res.getBody().length).append("\r\n");
-        }
-        headerSection.append("Connection: close\r\n\r\n");
-
-        byte[] statusBytes = statusLine.getBytes(StandardCharsets.UTF_8);
-        byte[] headerBytes = headerSection.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] bodyBytes = res.getBody();
-
-        byte[] result = new byte[statusBytes.length + headerBytes.length + bodyBytes.length];
-        System.arraycopy(statusBytes, 0, result, 0, statusBytes.length);
-        System.arraycopy(headerBytes, 0, result, statusBytes.length, headerBytes.length);
-        System.arraycopy(bodyBytes, 0, result, statusBytes.length + headerBytes.length, bodyBytes.length);
-
-        return result;
+        return total;
     }
 
     public void close() throws IOException {
-        running = false;
+        stop();
         if (selector != null && selector.isOpen()) {
             selector.close();
         }
@@ -249,13 +166,4 @@ public class NioServer {
             serverChannel.close();
         }
     }
-
-    private static class ConnectionState {
-        final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
-        final ByteArrayOutputStream accumulator = new ByteArrayOutputStream();
-        boolean hasParsed;
-        HttpRequest request;
-        byte[] responseBytes;
-        int bytesWritten;
-    }
 }
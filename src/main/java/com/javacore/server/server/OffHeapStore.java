@@ -0,0 +1,118 @@
+package com.javacore.server.server;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+
+/**
+ * Off-heap storage for immutable response bytes (cached static files, prebuilt pages).
+ * Bytes are copied into shared direct slabs and handed out as read-only slices, so a cached entry
+ * costs the heap one small ByteBuffer object however large its content is, and the reactor sends
+ * it without the JDK's copy into a temporary direct buffer.
+ * <p>
+ * Every entry has an owner (the PrebuiltResponse wrapping it). Once the owner is unreachable, e.g.
+ * after its cache entry was evicted or replaced, the entry is released: its bytes no longer count
+ * as live and a slab whose entries are all released is dropped, so the GC frees its memory as soon
+ * as no in-flight write still holds a slice. Large entries get a dedicated direct buffer, freed
+ * the same way.
+ */
+public final class OffHeapStore {
+
+    private static final int SLAB_SIZE = 1024 * 1024;
+    private static final int MAX_SHARED_SIZE = SLAB_SIZE / 4;
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final OffHeapStore SHARED = new OffHeapStore();
+
+    private Slab slab;
+    private long liveSlabs;
+    private long liveBytes;
+
+    /**
+     * Store used by PrebuiltResponse.
+     */
+    public static OffHeapStore shared() {
+        return SHARED;
+    }
+
+    /**
+     * Copies the parts back to back into off-heap memory, kept live for as long as owner is reachable.
+     *
+     * @return read-only direct buffer holding the concatenated parts, position 0
+     */
+    public synchronized ByteBuffer store(Object owner, byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        Slab target = length == 0 || length > MAX_SHARED_SIZE ? null : slabFor(length);
+        ByteBuffer region = target != null ? target.cut(length) : ByteBuffer.allocateDirect(length);
+        for (byte[] part : parts) {
+            region.put(part);
+        }
+        liveBytes += length;
+        CLEANER.register(owner, new Release(this, target, length));
+        return region.flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * Direct slabs still holding live entries, including the one being filled.
+     */
+    public synchronized long slabCount() {
+        return liveSlabs;
+    }
+
+    /**
+     * Bytes of entries whose owners are still reachable.
+     */
+    public synchronized long liveBytes() {
+        return liveBytes;
+    }
+
+    private Slab slabFor(int length) {
+        if (slab == null || slab.buffer.remaining() < length) {
+            if (slab != null && slab.live == 0) {
+                liveSlabs--;
+            }
+            slab = new Slab(ByteBuffer.allocateDirect(SLAB_SIZE));
+            liveSlabs++;
+        }
+        return slab;
+    }
+
+    private synchronized void release(Slab from, int length) {
+        liveBytes -= length;
+        if (from != null) {
+            from.live -= length;
+            if (from.live == 0 && from != slab) {
+                liveSlabs--;
+            }
+        }
+    }
+
+    private static final class Slab {
+        final ByteBuffer buffer;
+        /** Bytes of entries in this slab not yet released; guarded by the store. */
+        long live;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        ByteBuffer cut(int length) {
+            ByteBuffer region = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            live += length;
+            return region;
+        }
+    }
+
+    /**
+     * Cleaner action for one entry; must not reference the owner.
+     */
+    private record Release(OffHeapStore store, Slab slab, int length) implements Runnable {
+
+        @Override
+        public void run() {
+            store.release(slab, length);
+        }
+    }
+}
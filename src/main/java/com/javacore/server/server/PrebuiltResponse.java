@@ -0,0 +1,56 @@
+package com.javacore.server.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Immutable, ready-to-send response: encoded status line and headers plus body.
+ * Built once (e.g. for a cached static file) and written by the reactor as is; only the
+ * Connection headers, which depend on the request, are appended at send time.
+ * Head and body live back to back in the OffHeapStore, so cached responses stay off the heap; the
+ * store releases them once this object is unreachable.
+ */
+public final class PrebuiltResponse {
+
+    private final int statusCode;
+    private final ByteBuffer head;
+    private final ByteBuffer body;
+
+    private PrebuiltResponse(int statusCode, byte[] head, byte[] body) {
+        ByteBuffer region = OffHeapStore.shared().store(this, head, body);
+        this.statusCode = statusCode;
+        this.head = region.slice(0, head.length);
+        this.body = region.slice(head.length, body.length);
+    }
+
+    /**
+     * Snapshots status, headers and body of res. Later changes to res are not reflected.
+     */
+    public static PrebuiltResponse of(HttpResponse res) {
+        return new PrebuiltResponse(res.getStatusCode(), ResponseEncoder.encodeEntityHead(res), res.getBody());
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Size of head and body in bytes, excluding Connection headers.
+     */
+    public int size() {
+        return head.capacity() + body.capacity();
+    }
+
+    /**
+     * Fresh view of the encoded head; each caller gets its own position.
+     */
+    ByteBuffer head() {
+        return head.duplicate();
+    }
+
+    /**
+     * Fresh read-only view of the body; each caller gets its own position.
+     */
+    public ByteBuffer body() {
+        return body.duplicate();
+    }
+}
@@ -0,0 +1,648 @@
+package com.javacore.server.server;
+
+import com.javacore.server.handler.HttpHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Worker event loop owning one Selector.
+ * Reads requests, routes to handler and writes responses for the connections handed to it by NioServer.
+ * Channels from the acceptor thread are queued and registered on this loop's own thread.
+ * <p>
+ * With a handler executor, handlers run off this thread; the finished response is handed back
+ * through a completion queue and written by this loop. Requests on one connection are still
+ * handled one at a time so pipelined responses keep their order.
+ * <p>
+ * Socket reads go through this reactor's BufferPool of direct buffers, borrowed per read.
+ * Each response is queued as a pooled head buffer (encoded by ResponseEncoder) plus the body as is;
+ * both are sent with gathering writes, and the head goes back to the pool once written.
+ * File bodies are streamed with FileChannel.transferTo, resuming on each OP_WRITE; BodyStreams
+ * are pulled one chunk per completed write, so socket backpressure throttles the producer. A
+ * stream that is not ready parks its connection on OP_READ (to notice the client closing) until
+ * the stream asks to be resumed.
+ * <p>
+ * Parse, handler and write latencies are recorded per matched route in RouteMetrics.
+ */
+final class Reactor implements Runnable {
+
+    private static final int MAX_REQUEST_SIZE = 64 * 1024;
+    private static final int MAX_GATHER = 16;
+    private static final String HTTP_1_0 = "HTTP/1.0";
+
+    private final Router router;
+    private final ServerMetrics metrics;
+    private final RouteMetrics routeMetrics;
+    private final ServerConfig config;
+    private final Selector selector;
+    private final Executor handlerExecutor;
+    private final BufferPool bufferPool;
+    private final ResponseEncoder encoder;
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private long lastIdleSweep;
+
+    /**
+     * @param handlerExecutor runs handlers off the selector thread; null runs them inline
+     */
+    Reactor(Router router, ServerMetrics metrics, ServerConfig config, Executor handlerExecutor)
+            throws IOException {
+        this.router = router;
+        this.metrics = metrics;
+        this.routeMetrics = metrics.routes();
+        this.config = config;
+        this.handlerExecutor = handlerExecutor;
+        this.bufferPool = new BufferPool(config.getBufferSize(), config.getMaxPooledBuffers());
+        this.encoder = new ResponseEncoder(config);
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Hands an accepted channel to this reactor. Safe to call from any thread.
+     */
+    void register(SocketChannel channel) {
+        pendingChannels.add(channel);
+        selector.wakeup();
+    }
+
+    BufferPool.Stats bufferPoolStats() {
+        return bufferPool.stats();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                int ready = selector.select(1000);
+                registerPending();
+                runCompletions();
+                closeIdleConnections();
+                if (ready == 0) {
+                    continue;
+                }
+
+                Set<SelectionKey> keys = selector.selectedKeys();
+                Iterator<SelectionKey> it = keys.iterator();
+
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    try {
+                        if (key.isReadable()) {
+                            handleRead(key);
+                        } else if (key.isWritable()) {
+                            handleWrite(key);
+                        }
+                    } catch (Exception e) {
+                        closeChannel(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Reactor error: " + e.getMessage());
+        } finally {
+            metrics.unregisterThread(Thread.currentThread());
+            closeAll();
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void registerPending() {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+                ConnectionState state = new ConnectionState();
+                state.lastActivity = System.currentTimeMillis();
+                state.key = channel.register(selector, SelectionKey.OP_READ, state);
+                metrics.connectionOpened();
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void runCompletions() {
+        Runnable completion;
+        while ((completion = completions.poll()) != null) {
+            completion.run();
+        }
+    }
+
+    private void handleRead(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ConnectionState state = (ConnectionState) key.attachment();
+
+        ByteBuffer readBuffer = bufferPool.acquire();
+        try {
+            int read = channel.read(readBuffer);
+            if (read == -1) {
+                closeChannel(key);
+                return;
+            }
+            metrics.bytesRead(read);
+            readBuffer.flip();
+            state.decoder.feed(readBuffer);
+        } finally {
+            bufferPool.release(readBuffer);
+        }
+        state.lastActivity = System.currentTimeMillis();
+
+        processBuffered(key, state);
+    }
+
+    /**
+     * Parses and handles every complete buffered request, queueing responses in request order,
+     * then updates interest ops. Stops early when a response closes the connection or a handler
+     * was dispatched to the executor; the remaining bytes stay in the decoder until then.
+     */
+    private void processBuffered(SelectionKey key, ConnectionState state) {
+        while (!state.closeAfterWrite && !state.inFlight) {
+            HttpRequest request;
+            long start = System.nanoTime();
+            try {
+                request = state.decoder.next();
+            } catch (HttpParser.HttpParseException e) {
+                queueError(state, e.getStatusCode());
+                break;
+            }
+            long now = System.nanoTime();
+            state.parseNanos += now - start;
+            if (request == null) {
+                break;
+            }
+            long parseNanos = state.parseNanos;
+            state.parseNanos = 0;
+            dispatch(key, state, request, parseNanos, now);
+        }
+        updateInterest(key, state);
+    }
+
+    /**
+     * Write while responses are queued; stop reading while a handler is running on the executor.
+     */
+    private void updateInterest(SelectionKey key, ConnectionState state) {
+        if (!state.pendingWrites.isEmpty()) {
+            key.interestOps(state.pendingWrites.peek().isPaused() ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+        } else if (state.inFlight) {
+            key.interestOps(0);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * @param parseNanos time spent decoding the request, across all reads it arrived in
+     */
+    private void dispatch(SelectionKey key, ConnectionState state, HttpRequest request, long parseNanos, long now) {
+        Router.RouteMatch match = router.match(request.method(), request.getPathForRouting());
+        RouteMetrics.RouteStats stats = routeMetrics.route(match != null ? match.route() : RouteMetrics.UNMATCHED);
+        stats.parse().record(parseNanos, now);
+        if (handlerExecutor == null) {
+            queueResponse(state, request, invokeHandler(request, match, stats), stats);
+            return;
+        }
+        state.inFlight = true;
+        try {
+            handlerExecutor.execute(() -> {
+                HttpResponse response = invokeHandler(request, match, stats);
+                completions.add(() -> onHandlerDone(key, state, request, response, stats));
+                selector.wakeup();
+            });
+        } catch (RejectedExecutionException e) {
+            state.inFlight = false;
+            queueError(state, 503);
+        }
+    }
+
+    /**
+     * Runs on this reactor's thread once an executor-dispatched handler has finished.
+     */
+    private void onHandlerDone(SelectionKey key, ConnectionState state, HttpRequest request, HttpResponse response,
+                               RouteMetrics.RouteStats stats) {
+        if (!key.isValid()) {
+            discardBody(response);
+            return;
+        }
+        state.inFlight = false;
+        queueResponse(state, request, response, stats);
+        try {
+            processBuffered(key, state);
+        } catch (CancelledKeyException e) {
+            closeChannel(key);
+        }
+    }
+
+    private HttpResponse invokeHandler(HttpRequest request, Router.RouteMatch match, RouteMetrics.RouteStats stats) {
+        long start = System.nanoTime();
+        HttpResponse response = callHandler(request, match);
+        long now = System.nanoTime();
+        stats.handler().record(now - start, now);
+        return response;
+    }
+
+    private HttpResponse callHandler(HttpRequest request, Router.RouteMatch match) {
+        HttpResponse response = new HttpResponse();
+        try {
+            if (match == null) {
+                response.setStatusCode(404);
+                response.setBody("<h1>404 Not Found</h1>");
+            } else if (match.handler() == null) {
+                response.setStatusCode(405);
+                response.setHeader("Allow", allowHeader(match.allowedMethods()));
+                response.setBody("<h1>405 Method Not Allowed</h1>");
+            } else {
+                HttpHandler handler = match.handler();
+                if (!match.pathParams().isEmpty()) {
+                    request = request.withPathParams(match.pathParams());
+                }
+                Validators validators = handler.validators(request);
+                if (ConditionalGet.isNotModified(request, validators)) {
+                    return ConditionalGet.notModified(validators);
+                }
+                handler.handle(request, response);
+            }
+        } catch (RuntimeException e) {
+            response = new HttpResponse();
+            response.setStatusCode(500);
+            response.setBody("<h1>500 Internal Server Error</h1>");
+        }
+        return response;
+    }
+
+    /**
+     * Allow header value for a 405: the route's methods, plus HEAD wherever GET is allowed.
+     */
+    private static String allowHeader(Set<String> methods) {
+        StringJoiner allow = new StringJoiner(", ");
+        for (String method : methods) {
+            allow.add(method);
+        }
+        if (methods.contains("GET") && !methods.contains("HEAD")) {
+            allow.add("HEAD");
+        }
+        return allow.toString();
+    }
+
+    private void queueResponse(ConnectionState state, HttpRequest request, HttpResponse response,
+                               RouteMetrics.RouteStats stats) {
+        state.requestCount++;
+        boolean keepAlive = request.isKeepAlive()
+                && state.requestCount < config.getMaxRequestsPerConnection();
+        if (response.getBodyStream() != null && response.getBodyLength() < 0) {
+            if (HTTP_1_0.equals(request.version())) {
+                keepAlive = false;
+            } else {
+                response.setHeader("Transfer-Encoding", "chunked");
+            }
+        }
+        enqueue(state, response, keepAlive, "HEAD".equals(request.method()));
+        PendingWrite last = state.pendingWrites.peekLast();
+        last.latency = stats.write();
+        last.queuedAt = System.nanoTime();
+        if (!keepAlive) {
+            state.closeAfterWrite = true;
+        }
+    }
+
+    /**
+     * @param headersOnly true for a HEAD request: the head is what GET would send, Content-Length
+     *                    and Transfer-Encoding included, but the body is dropped
+     */
+    private void enqueue(ConnectionState state, HttpResponse response, boolean keepAlive, boolean headersOnly) {
+        PrebuiltResponse prebuilt = response.getPrebuilt();
+        if (prebuilt != null) {
+            state.pendingWrites.add(PendingWrite.of(prebuilt.head(), false));
+            state.pendingWrites.add(PendingWrite.of(encoder.connectionTail(keepAlive), false));
+            ByteBuffer body = prebuilt.body();
+            if (!headersOnly && body.hasRemaining()) {
+                state.pendingWrites.add(PendingWrite.of(body, false));
+            }
+            return;
+        }
+        ByteBuffer pooled = bufferPool.acquire();
+        ByteBuffer head = encoder.encodeHead(response, keepAlive, pooled);
+        if (head != pooled) {
+            bufferPool.release(pooled);
+        }
+        state.pendingWrites.add(PendingWrite.of(head, head == pooled));
+        BodyStream bodyStream = response.getBodyStream();
+        if (headersOnly) {
+            discardBody(response);
+            return;
+        }
+        if (bodyStream != null) {
+            boolean chunked = response.hasHeader("Transfer-Encoding");
+            state.pendingWrites.add(PendingWrite.of(new StreamingBody(
+                    bodyStream, response.getBodyLength(), chunked, () -> resumeStream(state))));
+            return;
+        }
+        FileRegion bodyFile = response.getBodyFile();
+        if (bodyFile != null) {
+            if (bodyFile.count() > 0) {
+                state.pendingWrites.add(PendingWrite.of(bodyFile));
+            }
+            return;
+        }
+        ByteBuffer[] bodyBuffers = response.getBodyBuffers();
+        if (bodyBuffers != null) {
+            for (ByteBuffer buffer : bodyBuffers) {
+                if (buffer.hasRemaining()) {
+                    state.pendingWrites.add(PendingWrite.of(buffer, false));
+                }
+            }
+            return;
+        }
+        byte[] body = response.getBody();
+        if (body.length > 0) {
+            state.pendingWrites.add(PendingWrite.of(ByteBuffer.wrap(body), false));
+        }
+    }
+
+    /**
+     * Closes the body stream of a response that will not be sent. File regions need nothing: the
+     * file is only opened once the region is being written.
+     */
+    private static void discardBody(HttpResponse response) {
+        BodyStream bodyStream = response.getBodyStream();
+        if (bodyStream != null) {
+            try {
+                bodyStream.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void handleWrite(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ConnectionState state = (ConnectionState) key.attachment();
+
+        Deque<PendingWrite> pending = state.pendingWrites;
+        while (!pending.isEmpty()) {
+            PendingWrite first = pending.peek();
+            if (first.buffer == null) {
+                long sentBefore = first.bytesSent();
+                boolean complete = first.file != null ? first.transferTo(channel) : first.stream.writeTo(channel);
+                metrics.bytesWritten(first.bytesSent() - sentBefore);
+                state.lastActivity = System.currentTimeMillis();
+                if (!complete) {
+                    if (first.isPaused()) {
+                        updateInterest(key, state);
+                    }
+                    return;
+                }
+                complete(pending.poll());
+                continue;
+            }
+            int count = 0;
+            for (PendingWrite write : pending) {
+                if (write.buffer == null) {
+                    break;
+                }
+                gather[count++] = write.buffer;
+                if (count == MAX_GATHER) {
+                    break;
+                }
+            }
+            try {
+                metrics.bytesWritten(channel.write(gather, 0, count));
+            } finally {
+                Arrays.fill(gather, 0, count, null);
+            }
+            state.lastActivity = System.currentTimeMillis();
+            int done = 0;
+            while (!pending.isEmpty() && pending.peek().buffer != null && !pending.peek().buffer.hasRemaining()) {
+                complete(pending.poll());
+                done++;
+            }
+            if (done < count) {
+                return;
+            }
+        }
+
+        if (state.closeAfterWrite) {
+            closeChannel(key);
+        } else {
+            updateInterest(key, state);
+        }
+    }
+
+    /**
+     * Called from a body stream's thread when it has data again: watch the socket for writes.
+     */
+    private void resumeStream(ConnectionState state) {
+        completions.add(() -> {
+            if (state.key.isValid() && !state.pendingWrites.isEmpty()) {
+                state.key.interestOps(SelectionKey.OP_WRITE);
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Releases a fully written entry; the last entry of a response records its write latency.
+     */
+    private void complete(PendingWrite write) {
+        if (write.latency != null) {
+            long now = System.nanoTime();
+            write.latency.record(now - write.queuedAt, now);
+        }
+        release(write);
+    }
+
+    private void release(PendingWrite write) {
+        if (write.pooled) {
+            bufferPool.release(write.buffer);
+        }
+        write.closeFile();
+        if (write.stream != null) {
+            write.stream.close();
+        }
+    }
+
+    /**
+     * Closes keep-alive connections that have been silent longer than the idle timeout.
+     * Runs at most once per second from the selector loop.
+     */
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        if (now - lastIdleSweep < 1000) {
+            return;
+        }
+        lastIdleSweep = now;
+        long timeout = config.getIdleTimeoutMillis();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof ConnectionState state
+                    && !state.inFlight && now - state.lastActivity > timeout) {
+                closeChannel(key);
+            }
+        }
+    }
+
+    private void closeChannel(SelectionKey key) {
+        if (key.attachment() instanceof ConnectionState state) {
+            PendingWrite write;
+            while ((write = state.pendingWrites.poll()) != null) {
+                release(write);
+            }
+        }
+        try {
+            key.cancel();
+            if (key.channel().isOpen()) {
+                metrics.connectionClosed();
+                key.channel().close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            closeChannel(key);
+        }
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void queueError(ConnectionState state, int statusCode) {
+        HttpResponse response = new HttpResponse();
+        response.setStatusCode(statusCode);
+        response.setBody("<h1>" + statusCode + " " + response.getStatusMessage() + "</h1>");
+        enqueue(state, response, false, false);
+        state.closeAfterWrite = true;
+    }
+
+    private static class ConnectionState {
+        final HttpRequestDecoder decoder = new HttpRequestDecoder(MAX_REQUEST_SIZE);
+        final Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+        SelectionKey key;
+        boolean closeAfterWrite;
+        boolean inFlight;
+        int requestCount;
+        long lastActivity;
+        long parseNanos;
+    }
+
+    /**
+     * A queued outbound buffer, file region or body stream. Pooled buffers go back to the
+     * BufferPool once fully written; file regions are opened lazily and, like streams, closed
+     * once sent or dropped.
+     */
+    private static final class PendingWrite {
+        final ByteBuffer buffer;
+        final boolean pooled;
+        final FileRegion file;
+        final StreamingBody stream;
+        FileChannel fileChannel;
+        long filePosition;
+        long fileRemaining;
+        LatencyHistogram latency;
+        long queuedAt;
+
+        private PendingWrite(ByteBuffer buffer, boolean pooled, FileRegion file, StreamingBody stream) {
+            this.buffer = buffer;
+            this.pooled = pooled;
+            this.file = file;
+            this.stream = stream;
+            if (file != null) {
+                this.filePosition = file.position();
+                this.fileRemaining = file.count();
+            }
+        }
+
+        static PendingWrite of(ByteBuffer buffer, boolean pooled) {
+            return new PendingWrite(buffer, pooled, null, null);
+        }
+
+        static PendingWrite of(FileRegion file) {
+            return new PendingWrite(null, false, file, null);
+        }
+
+        static PendingWrite of(StreamingBody stream) {
+            return new PendingWrite(null, false, null, stream);
+        }
+
+        /**
+         * Sends as much of the file region as the socket accepts (sendfile on Linux).
+         *
+         * @return true once the whole region has been sent
+         */
+        boolean transferTo(SocketChannel channel) throws IOException {
+            if (fileChannel == null) {
+                fileChannel = FileChannel.open(file.path(), StandardOpenOption.READ);
+            }
+            while (fileRemaining > 0) {
+                long sent = fileChannel.transferTo(filePosition, fileRemaining, channel);
+                if (sent <= 0) {
+                    if (filePosition >= fileChannel.size()) {
+                        throw new IOException("File truncated while sending: " + file.path());
+                    }
+                    return false;
+                }
+                filePosition += sent;
+                fileRemaining -= sent;
+            }
+            return true;
+        }
+
+        /**
+         * Bytes of the file region or stream written so far.
+         */
+        long bytesSent() {
+            return file != null ? filePosition - file.position() : stream.bytesWritten();
+        }
+
+        boolean isPaused() {
+            return stream != null && stream.isPaused();
+        }
+
+        void closeFile() {
+            if (fileChannel != null) {
+                try {
+                    fileChannel.close();
+                } catch (IOException ignored) {
+                }
+                fileChannel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.javacore.server.server;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes the status line and headers of an HttpResponse into a ByteBuffer.
+ * Status lines for known codes, common header names and the Connection headers are pre-encoded
+ * once; the body is never copied and is sent next to the head with a gathering write.
+ */
+final class ResponseEncoder {
+
+    private static final byte[] CRLF = ascii("\r\n");
+    private static final byte[] COLON_SPACE = ascii(": ");
+    private static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+    private static final byte[] CONNECTION_CLOSE = ascii("Connection: close\r\n");
+    private static final byte[][] STATUS_LINES = new byte[600][];
+    private static final Map<String, byte[]> HEADER_NAMES = new HashMap<>();
+
+    static {
+        for (int code = 100; code < STATUS_LINES.length; code++) {
+            String message = HttpResponse.getDefaultStatusMessage(code);
+            if (!"Unknown".equals(message)) {
+                STATUS_LINES[code] = ascii("HTTP/1.1 " + code + " " + message + "\r\n");
+            }
+        }
+        for (String name : new String[]{"Content-Type", "Content-Length", "Content-Encoding", "Cache-Control",
+                "ETag", "Last-Modified", "Vary", "Accept-Ranges", "Content-Range", "Location", "Date", "Transfer-Encoding"}) {
+            HEADER_NAMES.put(name, ascii(name + ": "));
+        }
+    }
+
+    private static final ByteBuffer CLOSE_TAIL = ByteBuffer.wrap(ascii("Connection: close\r\n\r\n")).asReadOnlyBuffer();
+
+    private final byte[] connectionKeepAlive;
+    private final ByteBuffer keepAliveTail;
+
+    ResponseEncoder(ServerConfig config) {
+        long timeoutSeconds = Math.max(1, config.getIdleTimeoutMillis() / 1000);
+        this.connectionKeepAlive = ascii("Connection: keep-alive\r\nKeep-Alive: timeout=" + timeoutSeconds + "\r\n");
+        this.keepAliveTail = ByteBuffer.wrap(ascii("Connection: keep-alive\r\nKeep-Alive: timeout="
+                + timeoutSeconds + "\r\n\r\n")).asReadOnlyBuffer();
+    }
+
+    /**
+     * Connection headers plus the blank line that ends the head, to follow a PrebuiltResponse head.
+     * Returns a fresh view so each connection keeps its own position.
+     */
+    ByteBuffer connectionTail(boolean keepAlive) {
+        return (keepAlive ? keepAliveTail : CLOSE_TAIL).duplicate();
+    }
+
+    /**
+     * Encodes status line and headers, without Connection headers and the final blank line.
+     */
+    static byte[] encodeEntityHead(HttpResponse res) {
+        ByteBuffer out = writeEntityHead(res, ByteBuffer.allocate(estimateSize(res)));
+        byte[] bytes = new byte[out.position()];
+        out.flip().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the response head (status line, headers, blank line) into out and flips it.
+     * If out is too small, a heap buffer of sufficient size is returned instead.
+     *
+     * @return buffer ready for writing: out, or a larger replacement
+     */
+    ByteBuffer encodeHead(HttpResponse res, boolean keepAlive, ByteBuffer out) {
+        try {
+            return writeHead(res, keepAlive, out.clear()).flip();
+        } catch (BufferOverflowException e) {
+            return writeHead(res, keepAlive, ByteBuffer.allocate(out.capacity() * 4 + estimateSize(res))).flip();
+        }
+    }
+
+    private ByteBuffer writeHead(HttpResponse res, boolean keepAlive, ByteBuffer out) {
+        writeEntityHead(res, out);
+        out.put(keepAlive ? connectionKeepAlive : CONNECTION_CLOSE);
+        out.put(CRLF);
+        return out;
+    }
+
+    private static ByteBuffer writeEntityHead(HttpResponse res, ByteBuffer out) {
+        int code = res.getStatusCode();
+        byte[] statusLine = code >= 0 && code < STATUS_LINES.length ? STATUS_LINES[code] : null;
+        if (statusLine != null && res.getStatusMessage().equals(HttpResponse.getDefaultStatusMessage(code))) {
+            out.put(statusLine);
+        } else {
+            putString(out, "HTTP/1.1 " + code + " " + res.getStatusMessage());
+            out.put(CRLF);
+        }
+
+        Map<String, String> headers = res.headersForEncoding();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            byte[] name = HEADER_NAMES.get(header.getKey());
+            if (name != null) {
+                out.put(name);
+            } else {
+                putString(out, header.getKey());
+                out.put(COLON_SPACE);
+            }
+            putString(out, header.getValue());
+            out.put(CRLF);
+        }
+        long length = res.getBodyLength();
+        if (!headers.containsKey("Content-Length") && length >= 0 && code != 304 && code != 204) {
+            out.put(CONTENT_LENGTH);
+            putLong(out, length);
+            out.put(CRLF);
+        }
+        return out;
+    }
+
+    private static int estimateSize(HttpResponse res) {
+        int size = 512;
+        for (Map.Entry<String, String> header : res.headersForEncoding().entrySet()) {
+            size += (header.getKey().length() + header.getValue().length() + 4) * 3;
+        }
+        return size;
+    }
+
+    /**
+     * ASCII fast path without allocation; falls back to UTF-8 encoding for other characters.
+     */
+    private static void putString(ByteBuffer out, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) {
+                out.put(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            out.put((byte) value.charAt(i));
+        }
+    }
+
+    private static void putLong(ByteBuffer out, long value) {
+        if (value == 0) {
+            out.put((byte) '0');
+            return;
+        }
+        int start = out.position();
+        long remaining = value;
+        while (remaining > 0) {
+            out.put((byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        for (int i = start, j = out.position() - 1; i < j; i++, j--) {
+            byte tmp = out.get(i);
+            out.put(i, out.get(j));
+            out.put(j, tmp);
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,82 @@
+package com.javacore.server.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-route latency histograms, recorded by the reactors for every request the Router resolves.
+ * Each route (keyed by its pattern, e.g. /topics/{slug}) tracks three phases:
+ * <ul>
+ *   <li>parse - decoding the request head and body</li>
+ *   <li>handler - validators and handle(), on the reactor or the handler executor</li>
+ *   <li>write - from queueing the response until its last byte has been written</li>
+ * </ul>
+ * Requests that match no route are recorded under {@link #UNMATCHED}.
+ */
+public final class RouteMetrics {
+
+    public static final String UNMATCHED = "(unmatched)";
+    private static final long DEFAULT_WINDOW_MILLIS = 60_000;
+    private static final int DEFAULT_INTERVALS = 4;
+
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final long windowMillis;
+    private final int intervals;
+
+    public RouteMetrics() {
+        this(DEFAULT_WINDOW_MILLIS, DEFAULT_INTERVALS);
+    }
+
+    /**
+     * @param windowMillis sliding window the percentiles are computed over
+     * @param intervals    number of steps the window slides in
+     */
+    public RouteMetrics(long windowMillis, int intervals) {
+        this.windowMillis = windowMillis;
+        this.intervals = intervals;
+    }
+
+    /**
+     * Stats for a route pattern, created on first use.
+     */
+    public RouteStats route(String route) {
+        RouteStats stats = routes.get(route);
+        return stats != null ? stats : routes.computeIfAbsent(route, r -> new RouteStats());
+    }
+
+    /**
+     * Routes seen so far, sorted by pattern.
+     */
+    public Map<String, RouteStats> routes() {
+        return new TreeMap<>(routes);
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Latency histograms of one route.
+     */
+    public final class RouteStats {
+        private final LatencyHistogram parse = new LatencyHistogram(windowMillis, intervals);
+        private final LatencyHistogram handler = new LatencyHistogram(windowMillis, intervals);
+        private final LatencyHistogram write = new LatencyHistogram(windowMillis, intervals);
+
+        private RouteStats() {
+        }
+
+        public LatencyHistogram parse() {
+            return parse;
+        }
+
+        public LatencyHistogram handler() {
+            return handler;
+        }
+
+        public LatencyHistogram write() {
+            return write;
+        }
+    }
+}
@@ -3,37 +3,330 @@ package com.javacore.server.server;
 import com.javacore.server.handler.HttpHandler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Routes HTTP requests to handlers by path prefix.
- * First matching rule wins.
+ * Routes HTTP requests to handlers with a compressed radix tree, so lookup cost depends on the
+ * path length rather than on the number of routes.
+ * <p>
+ * Patterns are matched segment by segment:
+ * <ul>
+ *   <li>static text, e.g. {@code /api/metrics} (exact match)</li>
+ *   <li>{@code {name}} - one non-empty path segment, available as request.pathParam("name")</li>
+ *   <li>{@code {name*}} or a trailing {@code *} - the rest of the path (possibly empty)</li>
+ * </ul>
+ * Static text wins over a parameter, which wins over a wildcard. Each route can be bound to one
+ * HTTP method or to any; HEAD falls back to the GET handler. A path that matches only under other
+ * methods yields a match without handler, which the server answers with 405.
  */
 public class Router {
 
-    private final List<RouteRule> rules = new ArrayList<>();
+    private static final String WILDCARD = "*";
 
+    private final Node root = new Node("");
+
+    /**
+     * Legacy prefix route: every path starting with pathPrefix, except "/" which matches only "/".
+     */
     public void addRoute(String pathPrefix, HttpHandler handler) {
-        rules.add(new RouteRule(pathPrefix, handler));
+        add(null, "/".equals(pathPrefix) ? pathPrefix : pathPrefix + WILDCARD, handler);
+    }
+
+    /**
+     * Adds a route for any method.
+     */
+    public void add(String pattern, HttpHandler handler) {
+        add(null, pattern, handler);
+    }
+
+    /**
+     * @param method HTTP method, or null for any method
+     * @throws IllegalArgumentException if the pattern is malformed or conflicts with an existing route
+     */
+    public void add(String method, String pattern, HttpHandler handler) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+        }
+        Node node = root;
+        int pos = 0;
+        while (pos < pattern.length()) {
+            int brace = pattern.indexOf('{', pos);
+            int star = pattern.indexOf('*', pos);
+            int next = min(brace, star);
+            if (next < 0) {
+                node = node.insertStatic(pattern.substring(pos));
+                break;
+            }
+            if (next > pos) {
+                node = node.insertStatic(pattern.substring(pos, next));
+            }
+            if (next == star) {
+                if (star != pattern.length() - 1) {
+                    throw new IllegalArgumentException("'*' must end the pattern: " + pattern);
+                }
+                node = node.wildcard(WILDCARD, pattern);
+                break;
+            }
+            int close = pattern.indexOf('}', brace);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed '{' in pattern: " + pattern);
+            }
+            String name = pattern.substring(brace + 1, close);
+            if (name.endsWith(WILDCARD)) {
+                if (close != pattern.length() - 1) {
+                    throw new IllegalArgumentException("Wildcard must end the pattern: " + pattern);
+                }
+                node = node.wildcard(name.substring(0, name.length() - 1), pattern);
+                break;
+            }
+            if (name.isEmpty() || brace == 0 || pattern.charAt(brace - 1) != '/'
+                    || (close + 1 < pattern.length() && pattern.charAt(close + 1) != '/')) {
+                throw new IllegalArgumentException("Parameter must be a whole segment: " + pattern);
+            }
+            node = node.param(name, pattern);
+            pos = close + 1;
+        }
+        node.bind(method, handler, pattern);
     }
 
+    /**
+     * Handler for the request, or null if no route matches or the method is not allowed.
+     */
     public HttpHandler route(HttpRequest request) {
-        String path = request.getPathForRouting();
+        RouteMatch match = match(request.method(), request.getPathForRouting());
+        return match != null ? match.handler() : null;
+    }
+
+    /**
+     * @return the match, or null if no route matches the path
+     */
+    public RouteMatch match(String method, String path) {
         if (path.isEmpty()) {
             path = "/";
         }
-        for (RouteRule rule : rules) {
-            if ("/".equals(rule.pathPrefix)) {
-                if ("/".equals(path)) {
-                    return rule.handler;
+        List<String> params = new ArrayList<>(4);
+        Node node = root.find(path, 0, params);
+        if (node == null) {
+            return null;
+        }
+        return new RouteMatch(node.handlerFor(method), toMap(params), node.handlers.keySet(), node.pattern);
+    }
+
+    private static Map<String, String> toMap(List<String> params) {
+        if (params.isEmpty()) {
+            return Map.of();
+        }
+        if (params.size() == 2) {
+            return Map.of(params.get(0), params.get(1));
+        }
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < params.size(); i += 2) {
+            map.put(params.get(i), params.get(i + 1));
+        }
+        return map;
+    }
+
+    private static int min(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        return b < 0 ? a : Math.min(a, b);
+    }
+
+    /**
+     * Result of a route lookup.
+     *
+     * @param handler        handler for the request method, or null if the path only has routes
+     *                       for other methods (answer 405)
+     * @param pathParams     values of {name} and wildcard segments
+     * @param allowedMethods methods bound on the matched route ("*" for any), for the Allow header
+     * @param route          pattern of the matched route, e.g. /topics/{slug}
+     */
+    public record RouteMatch(HttpHandler handler, Map<String, String> pathParams, Set<String> allowedMethods,
+                             String route) {
+    }
+
+    /**
+     * Tree node. Static children are keyed by their first character and carry compressed labels;
+     * a node has at most one parameter child and one wildcard child.
+     */
+    private static final class Node {
+        private String label;
+        private char[] indices = new char[0];
+        private Node[] children = new Node[0];
+        private Node paramChild;
+        private String paramName;
+        private Node wildcardChild;
+        private String wildcardName;
+        private String pattern;
+        private final Map<String, HttpHandler> handlers = new LinkedHashMap<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node insertStatic(String text) {
+            Node node = this;
+            int pos = 0;
+            while (pos < text.length()) {
+                int index = node.indexOf(text.charAt(pos));
+                if (index < 0) {
+                    return node.addChild(new Node(text.substring(pos)));
+                }
+                Node child = node.children[index];
+                int common = commonPrefix(child.label, text, pos);
+                if (common < child.label.length()) {
+                    child.split(common);
                 }
-            } else if (path.startsWith(rule.pathPrefix)) {
-                return rule.handler;
+                node = child;
+                pos += common;
             }
+            return node;
         }
-        return null;
-    }
 
-    private record RouteRule(String pathPrefix, HttpHandler handler) {
+        Node param(String name, String pattern) {
+            if (paramChild == null) {
+                paramChild = new Node("");
+                paramName = name;
+            } else if (!paramName.equals(name)) {
+                throw new IllegalArgumentException("Conflicting parameter {" + name + "} vs {"
+                        + paramName + "} in " + pattern);
+            }
+            return paramChild;
+        }
+
+        Node wildcard(String name, String pattern) {
+            if (wildcardChild == null) {
+                wildcardChild = new Node("");
+                wildcardName = name;
+            } else if (!wildcardName.equals(name)) {
+                throw new IllegalArgumentException("Conflicting wildcard {" + name + "*} in " + pattern);
+            }
+            return wildcardChild;
+        }
+
+        void bind(String method, HttpHandler handler, String pattern) {
+            String key = method != null ? method.toUpperCase() : WILDCARD;
+            if (handlers.putIfAbsent(key, handler) != null) {
+                throw new IllegalArgumentException("Duplicate route: " + key + " " + pattern);
+            }
+            if (this.pattern == null) {
+                this.pattern = pattern;
+            }
+        }
+
+        HttpHandler handlerFor(String method) {
+            HttpHandler handler = handlers.get(method);
+            if (handler == null && "HEAD".equals(method)) {
+                handler = handlers.get("GET");
+            }
+            return handler != null ? handler : handlers.get(WILDCARD);
+        }
+
+        /**
+         * Matches path[pos..] below this node (whose label is already consumed), backtracking
+         * from static to parameter to wildcard children. Appends name/value pairs to params.
+         */
+        Node find(String path, int pos, List<String> params) {
+            if (pos == path.length()) {
+                if (!handlers.isEmpty()) {
+                    return this;
+                }
+                return wildcardChild != null ? capture(wildcardName, "", wildcardChild, params) : null;
+            }
+            int index = indexOf(path.charAt(pos));
+            if (index >= 0) {
+                Node child = children[index];
+                if (path.startsWith(child.label, pos)) {
+                    Node found = child.find(path, pos + child.label.length(), params);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+            if (paramChild != null) {
+                int end = path.indexOf('/', pos);
+                if (end < 0) {
+                    end = path.length();
+                }
+                if (end > pos) {
+                    int mark = params.size();
+                    params.add(paramName);
+                    params.add(path.substring(pos, end));
+                    Node found = paramChild.find(path, end, params);
+                    if (found != null) {
+                        return found;
+                    }
+                    params.subList(mark, params.size()).clear();
+                }
+            }
+            if (wildcardChild != null) {
+                return capture(wildcardName, path.substring(pos), wildcardChild, params);
+            }
+            return null;
+        }
+
+        private static Node capture(String name, String value, Node node, List<String> params) {
+            params.add(name);
+            params.add(value);
+            return node;
+        }
+
+        private int indexOf(char c) {
+            for (int i = 0; i < indices.length; i++) {
+                if (indices[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Node addChild(Node child) {
+            indices = Arrays.copyOf(indices, indices.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            indices[indices.length - 1] = child.label.charAt(0);
+            children[children.length - 1] = child;
+            return child;
+        }
+
+        /**
+         * Splits this node's label at offset: this keeps the head, a new child takes the tail and
+         * everything this node had.
+         */
+        private void split(int offset) {
+            Node tail = new Node(label.substring(offset));
+            tail.indices = indices;
+            tail.children = children;
+            tail.paramChild = paramChild;
+            tail.paramName = paramName;
+            tail.wildcardChild = wildcardChild;
+            tail.wildcardName = wildcardName;
+            tail.pattern = pattern;
+            tail.handlers.putAll(handlers);
+
+            label = label.substring(0, offset);
+            indices = new char[]{tail.label.charAt(0)};
+            children = new Node[]{tail};
+            paramChild = null;
+            paramName = null;
+            wildcardChild = null;
+            wildcardName = null;
+            pattern = null;
+            handlers.clear();
+        }
+
+        private static int commonPrefix(String label, String text, int pos) {
+            int max = Math.min(label.length(), text.length() - pos);
+            int i = 0;
+            while (i < max && label.charAt(i) == text.charAt(pos + i)) {
+                i++;
+            }
+            return i;
+        }
     }
 }
@@ -0,0 +1,231 @@
+package com.javacore.server.server;
+
+import java.nio.file.Path;
+
+/**
+ * Tunable settings for NioServer.
+ * Defaults suit a local learning site; override via system properties (server.*) or setters.
+ */
+public final class ServerConfig {
+
+    private static final int DEFAULT_MAX_REQUESTS_PER_CONNECTION = 100;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5_000;
+
+    private int maxRequestsPerConnection = DEFAULT_MAX_REQUESTS_PER_CONNECTION;
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private int bufferSize = 16 * 1024;
+    private int maxPooledBuffers = 256;
+    private long staticCacheMaxBytes = 32L * 1024 * 1024;
+    private DispatchMode dispatchMode = DispatchMode.INLINE;
+    private int handlerThreads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+    private Path documentRoot;
+    private boolean preloadFragments = true;
+    private long metricsIntervalMillis = 1_000;
+
+    /**
+     * Where HttpHandlers run.
+     * INLINE: on the reactor (selector) thread. EXECUTOR: on a virtual-thread-per-task executor
+     * (JDK 21+) or a bounded platform thread pool of handlerThreads (JDK 17).
+     */
+    public enum DispatchMode {
+        INLINE,
+        EXECUTOR
+    }
+
+    public static ServerConfig defaults() {
+        return new ServerConfig();
+    }
+
+    /**
+     * Reads overrides from system properties, e.g. -Dserver.keepAlive.maxRequests=200.
+     * Invalid values are ignored and the default is kept.
+     */
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setMaxRequestsPerConnection(
+                intProperty("server.keepAlive.maxRequests", config.maxRequestsPerConnection));
+        config.setIdleTimeoutMillis(
+                longProperty("server.keepAlive.idleTimeoutMillis", config.idleTimeoutMillis));
+        config.setWorkerCount(intProperty("server.workers", config.workerCount));
+        config.setBufferSize(intProperty("server.bufferPool.bufferSize", config.bufferSize));
+        config.setMaxPooledBuffers(intProperty("server.bufferPool.maxBuffers", config.maxPooledBuffers));
+        config.setStaticCacheMaxBytes(longProperty("server.staticCache.maxBytes", config.staticCacheMaxBytes));
+        config.setHandlerThreads(intProperty("server.handlerThreads", config.handlerThreads));
+        config.setMetricsIntervalMillis(longProperty("server.metrics.intervalMillis", config.metricsIntervalMillis));
+        String docRoot = System.getProperty("server.docRoot");
+        if (docRoot != null && !docRoot.isBlank()) {
+            config.setDocumentRoot(Path.of(docRoot.trim()));
+        }
+        String preload = System.getProperty("server.topics.preload");
+        if (preload != null) {
+            config.setPreloadFragments(Boolean.parseBoolean(preload.trim()));
+        }
+        String dispatch = System.getProperty("server.dispatch");
+        if (dispatch != null) {
+            try {
+                config.setDispatchMode(DispatchMode.valueOf(dispatch.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid server.dispatch, using default: " + config.dispatchMode);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Max requests served on one connection before the server answers with Connection: close.
+     * A value of 1 disables keep-alive.
+     */
+    public int getMaxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+
+    public ServerConfig setMaxRequestsPerConnection(int maxRequestsPerConnection) {
+        this.maxRequestsPerConnection = Math.max(1, maxRequestsPerConnection);
+        return this;
+    }
+
+    /**
+     * Idle connections (no bytes in flight) are closed after this many milliseconds.
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public ServerConfig setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = Math.max(1, idleTimeoutMillis);
+        return this;
+    }
+
+    /**
+     * Number of worker reactors (selector threads) handling connections. Defaults to one per core.
+     */
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public ServerConfig setWorkerCount(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+        return this;
+    }
+
+    /**
+     * Capacity of each pooled direct buffer used for socket reads and writes.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public ServerConfig setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1024, bufferSize);
+        return this;
+    }
+
+    /**
+     * Max direct buffers kept by each reactor's pool.
+     */
+    public int getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    public ServerConfig setMaxPooledBuffers(int maxPooledBuffers) {
+        this.maxPooledBuffers = Math.max(0, maxPooledBuffers);
+        return this;
+    }
+
+    /**
+     * Cap on the summed size of cached static file responses. 0 disables the cache.
+     */
+    public long getStaticCacheMaxBytes() {
+        return staticCacheMaxBytes;
+    }
+
+    public ServerConfig setStaticCacheMaxBytes(long staticCacheMaxBytes) {
+        this.staticCacheMaxBytes = Math.max(0, staticCacheMaxBytes);
+        return this;
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    public ServerConfig setDispatchMode(DispatchMode dispatchMode) {
+        this.dispatchMode = dispatchMode != null ? dispatchMode : DispatchMode.INLINE;
+        return this;
+    }
+
+    /**
+     * Size of the platform thread pool used for EXECUTOR dispatch when virtual threads are unavailable.
+     */
+    public int getHandlerThreads() {
+        return handlerThreads;
+    }
+
+    public ServerConfig setHandlerThreads(int handlerThreads) {
+        this.handlerThreads = Math.max(1, handlerThreads);
+        return this;
+    }
+
+    /**
+     * Directory static files are served from. null (the default) serves them from the classpath.
+     */
+    public Path getDocumentRoot() {
+        return documentRoot;
+    }
+
+    public ServerConfig setDocumentRoot(Path documentRoot) {
+        this.documentRoot = documentRoot != null ? documentRoot.toAbsolutePath().normalize() : null;
+        return this;
+    }
+
+    /**
+     * Whether topic fragments are all loaded (in parallel) at startup rather than on first use.
+     */
+    public boolean isPreloadFragments() {
+        return preloadFragments;
+    }
+
+    public ServerConfig setPreloadFragments(boolean preloadFragments) {
+        this.preloadFragments = preloadFragments;
+        return this;
+    }
+
+    /**
+     * Time between metrics samples, served by /api/metrics and pushed to /api/metrics/stream
+     * subscribers. Keep it below the idle timeout, or idle event streams are closed between samples.
+     */
+    public long getMetricsIntervalMillis() {
+        return metricsIntervalMillis;
+    }
+
+    public ServerConfig setMetricsIntervalMillis(long metricsIntervalMillis) {
+        this.metricsIntervalMillis = Math.max(100, metricsIntervalMillis);
+        return this;
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + ", using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + ", using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.javacore.server.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters a NioServer updates while it runs, plus its per-route latencies: connections accepted
+ * and open, bytes read and written, and the threads it runs on (acceptor, reactors and handler pool
+ * threads) so their allocation can be sampled. Updated with LongAdders from every reactor; read by
+ * the metrics endpoints.
+ */
+public final class ServerMetrics {
+
+    private final RouteMetrics routes;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder openConnections = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final Map<Long, Thread> threads = new ConcurrentHashMap<>();
+
+    public ServerMetrics() {
+        this(new RouteMetrics());
+    }
+
+    public ServerMetrics(RouteMetrics routes) {
+        this.routes = routes;
+    }
+
+    public RouteMetrics routes() {
+        return routes;
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    public long openConnections() {
+        return openConnections.sum();
+    }
+
+    public long bytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long bytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Live server threads, sorted by name.
+     */
+    public List<Thread> threads() {
+        List<Thread> alive = new ArrayList<>(threads.size());
+        for (Thread thread : threads.values()) {
+            if (thread.isAlive()) {
+                alive.add(thread);
+            }
+        }
+        alive.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return alive;
+    }
+
+    void connectionAccepted() {
+        accepted.increment();
+    }
+
+    void connectionOpened() {
+        openConnections.increment();
+    }
+
+    void connectionClosed() {
+        openConnections.decrement();
+    }
+
+    void bytesRead(long count) {
+        bytesIn.add(count);
+    }
+
+    void bytesWritten(long count) {
+        if (count > 0) {
+            bytesOut.add(count);
+        }
+    }
+
+    void registerThread(Thread thread) {
+        threads.put(thread.getId(), thread);
+    }
+
+    void unregisterThread(Thread thread) {
+        threads.remove(thread.getId());
+    }
+}
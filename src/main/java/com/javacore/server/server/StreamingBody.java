@@ -0,0 +1,159 @@
+package com.javacore.server.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reactor-side state of a BodyStream being sent. Pulls the next chunk only after the previous one
+ * was fully written, and frames chunks for Transfer-Encoding: chunked when the length is unknown.
+ * A stream that is not ready pauses the body; its resume callback wakes the reactor at most once
+ * per poll.
+ */
+final class StreamingBody {
+
+    private static final ByteBuffer CRLF = ByteBuffer.wrap("\r\n".getBytes(StandardCharsets.US_ASCII))
+            .asReadOnlyBuffer();
+    private static final ByteBuffer LAST_CHUNK = ByteBuffer.wrap("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII))
+            .asReadOnlyBuffer();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final BodyStream stream;
+    private final boolean chunked;
+    private final ByteBuffer sizeLine = ByteBuffer.allocate(18);
+    private final ByteBuffer[] frame = new ByteBuffer[3];
+    private int frameStart;
+    private int frameEnd;
+    private final AtomicBoolean resumeQueued = new AtomicBoolean();
+    private final Runnable wakeup;
+    private long remaining;
+    private long bytesWritten;
+    private boolean ended;
+    private boolean paused;
+
+    /**
+     * @param length declared Content-Length, or -1 if the body is sent without one
+     * @param chunked whether to apply chunked transfer coding
+     * @param wakeup asks the reactor to poll this body again; called from the stream's thread
+     */
+    StreamingBody(BodyStream stream, long length, boolean chunked, Runnable wakeup) {
+        this.stream = stream;
+        this.remaining = length;
+        this.chunked = chunked;
+        this.wakeup = wakeup;
+        stream.setResumeCallback(this::resume);
+    }
+
+    /**
+     * Bytes written to the socket so far, including chunk framing.
+     */
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Whether the last poll found the stream not ready; the socket need not be watched for writes.
+     */
+    boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Writes until the socket is full or the stream has ended.
+     *
+     * @return true once the whole body (and the last chunk) has been written
+     * @throws IOException if the stream fails or produces a length other than the declared one;
+     *                     the response cannot be completed and the connection must be closed
+     */
+    boolean writeTo(SocketChannel channel) throws IOException {
+        resumeQueued.set(false);
+        paused = false;
+        while (true) {
+            if (frameStart < frameEnd) {
+                bytesWritten += channel.write(frame, frameStart, frameEnd - frameStart);
+                while (frameStart < frameEnd && !frame[frameStart].hasRemaining()) {
+                    frame[frameStart++] = null;
+                }
+                if (frameStart < frameEnd) {
+                    return false;
+                }
+            }
+            if (ended) {
+                return true;
+            }
+            nextFrame();
+            if (paused) {
+                return false;
+            }
+        }
+    }
+
+    private void resume() {
+        if (resumeQueued.compareAndSet(false, true)) {
+            wakeup.run();
+        }
+    }
+
+    void close() {
+        try {
+            stream.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void nextFrame() throws IOException {
+        ByteBuffer chunk;
+        try {
+            chunk = stream.next();
+        } catch (RuntimeException e) {
+            throw new IOException("Body stream failed", e);
+        }
+        frameStart = 0;
+        frameEnd = 0;
+        if (chunk == BodyStream.NOT_READY) {
+            paused = true;
+            return;
+        }
+        if (chunk == null) {
+            ended = true;
+            if (remaining > 0) {
+                throw new IOException("Body stream ended " + remaining + " bytes short of Content-Length");
+            }
+            if (chunked) {
+                frame[frameEnd++] = LAST_CHUNK.duplicate();
+            }
+            return;
+        }
+        int size = chunk.remaining();
+        if (size == 0) {
+            return;
+        }
+        if (remaining >= 0) {
+            if (size > remaining) {
+                throw new IOException("Body stream exceeded Content-Length");
+            }
+            remaining -= size;
+        }
+        if (chunked) {
+            frame[frameEnd++] = sizeLine(size);
+            frame[frameEnd++] = chunk;
+            frame[frameEnd++] = CRLF.duplicate();
+        } else {
+            frame[frameEnd++] = chunk;
+        }
+    }
+
+    private ByteBuffer sizeLine(int size) {
+        sizeLine.clear();
+        int shift = 28;
+        while (shift > 0 && (size >>> shift) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            sizeLine.put(HEX[(size >>> shift) & 0xF]);
+        }
+        return sizeLine.put((byte) '\r').put((byte) '\n').flip();
+    }
+}
@@ -0,0 +1,108 @@
+package com.javacore.server.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Cache validators of one representation: strong ETag, Last-Modified and Cache-Control.
+ * Handlers expose them through HttpHandler.validators so conditional requests can be answered
+ * with 304 before the handler runs.
+ */
+public final class Validators {
+
+    public static final String NO_CACHE = "no-cache";
+
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    private static final int ETAG_HASH_BYTES = 12;
+
+    private final String etag;
+    private final long lastModifiedSeconds;
+    private final String lastModifiedHttpDate;
+    private final String cacheControl;
+    private final boolean varyOnEncoding;
+
+    /**
+     * @param etag           quoted entity tag, e.g. "\"abc\""
+     * @param lastModified   epoch millis; truncated to seconds as HTTP dates have no millis
+     * @param cacheControl   Cache-Control value
+     * @param varyOnEncoding whether the representation depends on Accept-Encoding
+     */
+    public Validators(String etag, long lastModified, String cacheControl, boolean varyOnEncoding) {
+        this.etag = etag;
+        this.lastModifiedSeconds = lastModified / 1000;
+        this.lastModifiedHttpDate = formatHttpDate(lastModifiedSeconds * 1000);
+        this.cacheControl = cacheControl;
+        this.varyOnEncoding = varyOnEncoding;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getLastModifiedSeconds() {
+        return lastModifiedSeconds;
+    }
+
+    public String getLastModifiedHttpDate() {
+        return lastModifiedHttpDate;
+    }
+
+    /**
+     * Sets ETag, Last-Modified, Cache-Control (and Vary when needed) on res.
+     */
+    public void applyTo(HttpResponse res) {
+        res.setHeader("ETag", etag);
+        res.setHeader("Last-Modified", lastModifiedHttpDate);
+        res.setHeader("Cache-Control", cacheControl);
+        if (varyOnEncoding) {
+            res.setHeader("Vary", "Accept-Encoding");
+        }
+    }
+
+    /**
+     * Content hash (SHA-256, truncated) encoded for use inside an entity tag.
+     */
+    public static String contentHash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, ETAG_HASH_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String contentHash(String content) {
+        return contentHash(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Strong entity tag from a content hash. Each content coding is a different representation,
+     * so compressed variants get their own tag via suffix (e.g. "-gzip").
+     */
+    public static String strongEtag(String hash, String suffix) {
+        return "\"" + hash + (suffix != null ? suffix : "") + "\"";
+    }
+
+    public static String formatHttpDate(long epochMillis) {
+        return HTTP_DATE.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * @return epoch seconds, or -1 if the value is not an RFC 1123 date
+     */
+    public static long parseHttpDate(String value) {
+        try {
+            return Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value.trim())).getEpochSecond();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -1,16 +1,12 @@
 package com.javacore.server.topic;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
- * Exception topic - loads content from multiple HTML fragments.
+ * Exception topic - content is assembled from the HTML fragments in web/topics/exception/.
  */
 public final class ExceptionTopic implements JavaCoreTopic {
 
-    private static final String FRAGMENT_BASE = "web/topics/exception/";
     private static final List<String> FRAGMENTS = List.of(
             "01-hierarchy.html",
             "02-keywords.html",
@@ -36,27 +32,7 @@ public final class ExceptionTopic implements JavaCoreTopic {
     }
 
     @Override
-    public String getContentHtml() {
-        StringBuilder sb = new StringBuilder();
-        ClassLoader loader = getClass().getClassLoader();
-
-        for (String fragment : FRAGMENTS) {
-            String path = FRAGMENT_BASE + fragment;
-            String content = loadFragment(loader, path);
-            sb.append(content);
-        }
-
-        return sb.toString();
-    }
-
-    private String loadFragment(ClassLoader loader, String path) {
-        try (InputStream in = loader.getResourceAsStream(path)) {
-            if (in == null) {
-                return "<p>Fragment not found: " + path + "</p>";
-            }
-            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            return "<p>Error loading: " + path + "</p>";
-        }
+    public List<String> getFragments() {
+        return FRAGMENTS;
     }
 }
@@ -0,0 +1,172 @@
+package com.javacore.server.topic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Topic HTML fragments, loaded once and kept as UTF-8 bytes.
+ * Fragments live under web/topics/&lt;slug&gt;/ and are read from the classpath, or from the
+ * document root when one is set. preload() reads every declared fragment in parallel on the
+ * common fork-join pool while the server starts; anything not preloaded is read on first use. invalidate() drops a
+ * fragment after it changed on disk so the next use reads it again.
+ */
+public final class FragmentStore {
+
+    private static final String TOPICS_BASE = "web/topics/";
+    private static final FragmentStore SHARED = new FragmentStore();
+
+    private final Map<String, byte[]> fragments = new ConcurrentHashMap<>();
+    private volatile Path documentRoot;
+
+    /**
+     * Store used by all topics.
+     */
+    public static FragmentStore shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param root directory that replaces web/ on the classpath, or null to read the classpath
+     */
+    public void setDocumentRoot(Path root) {
+        documentRoot = root;
+        fragments.clear();
+    }
+
+    /**
+     * Loads the fragments of all topics in parallel on the common fork-join pool, without blocking
+     * the caller. A request that needs a fragment still being loaded waits for that one read.
+     *
+     * @return completes with the total size of the loaded fragments in bytes
+     */
+    public CompletableFuture<Long> preload(Collection<JavaCoreTopic> topics) {
+        List<String> keys = new ArrayList<>();
+        for (JavaCoreTopic topic : topics) {
+            for (String fragment : topic.getFragments()) {
+                keys.add(key(topic.getSlug(), fragment));
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> keys.parallelStream()
+                .mapToLong(key -> fragments.computeIfAbsent(key, this::read).length)
+                .sum(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param fragment file name under web/topics/&lt;slug&gt;/
+     * @return fragment as UTF-8, or an inline error paragraph if it cannot be read
+     */
+    public byte[] get(String slug, String fragment) {
+        return fragments.computeIfAbsent(key(slug, fragment), this::read);
+    }
+
+    /**
+     * The named fragments of slug concatenated into one array.
+     */
+    public byte[] concat(String slug, List<String> names) {
+        byte[][] parts = new byte[names.size()][];
+        int length = 0;
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = get(slug, names.get(i));
+            length += parts[i].length;
+        }
+        byte[] out = new byte[length];
+        int pos = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, out, pos, part.length);
+            pos += part.length;
+        }
+        return out;
+    }
+
+    /**
+     * Drops one fragment, e.g. after a file watcher saw it change.
+     */
+    public void invalidate(String slug, String fragment) {
+        fragments.remove(key(slug, fragment));
+    }
+
+    public int size() {
+        return fragments.size();
+    }
+
+    /**
+     * Modification time of a fragment's source file, in epoch millis.
+     *
+     * @return the time, or 0 if it is unknown
+     */
+    public long lastModified(String slug, String fragment) {
+        Path root = documentRoot;
+        if (root == null) {
+            return resourceModified(TOPICS_BASE + key(slug, fragment));
+        }
+        try {
+            return Files.getLastModifiedTime(root.resolve("topics").resolve(key(slug, fragment))).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Modification time of a classpath resource (file or jar entry), in epoch millis.
+     *
+     * @return the time, or 0 if the resource does not exist or has none
+     */
+    public static long resourceModified(String path) {
+        URL url = FragmentStore.class.getClassLoader().getResource(path);
+        if (url == null) {
+            return 0;
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            long modified = connection.getLastModified();
+            // Reading the time may open the resource; close it rather than wait for the GC
+            connection.getInputStream().close();
+            return Math.max(0, modified);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String key(String slug, String fragment) {
+        return slug + "/" + fragment;
+    }
+
+    private byte[] read(String key) {
+        String path = TOPICS_BASE + key;
+        Path root = documentRoot;
+        if (root != null) {
+            try {
+                return Files.readAllBytes(root.resolve("topics").resolve(key));
+            } catch (NoSuchFileException e) {
+                return error("Fragment not found: " + path);
+            } catch (IOException e) {
+                return error("Error loading: " + path);
+            }
+        }
+        try (InputStream in = FragmentStore.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                return error("Fragment not found: " + path);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            return error("Error loading: " + path);
+        }
+    }
+
+    private static byte[] error(String message) {
+        return ("<p>" + message + "</p>").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,8 +1,13 @@
 package com.javacore.server.topic;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 /**
  * A Java Core topic presented on the learning site.
  * Implement fully for completed topics; use StubTopic for placeholders.
+ * Topics backed by HTML files only declare them in getFragments(); the content comes from the
+ * shared FragmentStore.
  */
 public interface JavaCoreTopic {
 
@@ -12,5 +17,34 @@ public interface JavaCoreTopic {
 
     String getDescription();
 
-    String getContentHtml();
+    /**
+     * File names of the HTML fragments in web/topics/{slug}/ that make up the content, in order.
+     * Empty for topics that build their content in code.
+     */
+    default List<String> getFragments() {
+        return List.of();
+    }
+
+    /**
+     * Content as UTF-8 bytes, ready to be copied into a rendered page.
+     */
+    default byte[] getContentUtf8() {
+        List<String> fragments = getFragments();
+        return fragments.isEmpty()
+                ? getContentHtml().getBytes(StandardCharsets.UTF_8)
+                : FragmentStore.shared().concat(getSlug(), fragments);
+    }
+
+    /**
+     * Content as HTML. Topics without fragments must override this.
+     *
+     * @throws IllegalStateException if the topic declares no fragments and does not override this
+     */
+    default String getContentHtml() {
+        List<String> fragments = getFragments();
+        if (fragments.isEmpty()) {
+            throw new IllegalStateException("Topic " + getSlug() + " has neither fragments nor HTML content");
+        }
+        return new String(FragmentStore.shared().concat(getSlug(), fragments), StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,198 @@
+package com.javacore.server.util;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP content codings: Accept-Encoding negotiation and gzip/deflate compression with java.util.zip.
+ */
+public final class ContentEncoding {
+
+    /** Bodies smaller than this are sent as is; the coding overhead outweighs the savings. */
+    public static final int MIN_COMPRESS_SIZE = 256;
+    public static final String VARY_VALUE = "Accept-Encoding";
+
+    public enum Coding {
+        IDENTITY(null, ""),
+        GZIP("gzip", "-gzip"),
+        DEFLATE("deflate", "-deflate");
+
+        private final String token;
+        private final String etagSuffix;
+
+        Coding(String token, String etagSuffix) {
+            this.token = token;
+            this.etagSuffix = etagSuffix;
+        }
+
+        /**
+         * Appended to the content hash so each coding has its own strong ETag.
+         */
+        public String etagSuffix() {
+            return etagSuffix;
+        }
+
+        /**
+         * Content-Encoding header value; null for identity.
+         */
+        public String token() {
+            return token;
+        }
+    }
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Picks the best coding the client accepts. Prefers gzip over deflate at equal q-value;
+     * falls back to identity when neither is acceptable.
+     */
+    public static Coding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return Coding.IDENTITY;
+        }
+        double gzipQ = -1;
+        double deflateQ = -1;
+        double wildcardQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String item = part.trim();
+            double q = 1;
+            int semicolon = item.indexOf(';');
+            if (semicolon >= 0) {
+                q = parseQ(item.substring(semicolon + 1));
+                item = item.substring(0, semicolon).trim();
+            }
+            if (item.equalsIgnoreCase("gzip") || item.equalsIgnoreCase("x-gzip")) {
+                gzipQ = q;
+            } else if (item.equalsIgnoreCase("deflate")) {
+                deflateQ = q;
+            } else if (item.equals("*")) {
+                wildcardQ = q;
+            }
+        }
+        // Codings not listed explicitly take the q-value of "*", if present
+        if (gzipQ < 0) {
+            gzipQ = wildcardQ;
+        }
+        if (deflateQ < 0) {
+            deflateQ = wildcardQ;
+        }
+        if (gzipQ > 0 && gzipQ >= deflateQ) {
+            return Coding.GZIP;
+        }
+        if (deflateQ > 0) {
+            return Coding.DEFLATE;
+        }
+        return Coding.IDENTITY;
+    }
+
+    /**
+     * Text-like types compress well; images other than SVG are already compressed.
+     */
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        return contentType.startsWith("text/")
+                || contentType.startsWith("application/javascript")
+                || contentType.startsWith("application/json")
+                || contentType.startsWith("image/svg+xml");
+    }
+
+    /**
+     * @param level Deflater level: BEST_COMPRESSION for variants built once, DEFAULT_COMPRESSION per request
+     */
+    public static byte[] encode(byte[] data, Coding coding, int level) {
+        return switch (coding) {
+            case GZIP -> gzip(data, level);
+            case DEFLATE -> deflate(data, level);
+            case IDENTITY -> data;
+        };
+    }
+
+    public static byte[] gzip(byte[] data, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (OutputStream gzip = new LeveledGzipOutputStream(out, level)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("gzip failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * HTTP "deflate" is the zlib format (RFC 1950), which DeflaterOutputStream writes by default.
+     */
+    public static byte[] deflate(byte[] data, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 64);
+        Deflater deflater = new Deflater(level);
+        try (OutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("deflate failed", e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Whether compress() would encode a body of this type and size.
+     */
+    public static boolean shouldCompress(String contentType, int length) {
+        return isCompressible(contentType) && length >= MIN_COMPRESS_SIZE;
+    }
+
+    /**
+     * Compresses a dynamically built response body in place when the client accepts it.
+     * Used for responses that are not cached; cached ones keep precompressed variants.
+     *
+     * @return the coding applied (IDENTITY if the body was left as is)
+     */
+    public static Coding compress(HttpRequest req, HttpResponse res) {
+        String contentType = res.getHeaders().get("Content-Type");
+        if (!shouldCompress(contentType, res.getBody().length)) {
+            return Coding.IDENTITY;
+        }
+        res.setHeader("Vary", VARY_VALUE);
+        Coding coding = negotiate(req.getHeader("Accept-Encoding"));
+        if (coding == Coding.IDENTITY) {
+            return coding;
+        }
+        res.setBody(encode(res.getBody(), coding, Deflater.DEFAULT_COMPRESSION));
+        res.setHeader("Content-Encoding", coding.token());
+        return coding;
+    }
+
+    private static double parseQ(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * GZIPOutputStream with a configurable compression level.
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+}
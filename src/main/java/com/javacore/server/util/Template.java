@@ -0,0 +1,314 @@
+package com.javacore.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * HTML template compiled once into pre-encoded UTF-8 literal segments and named slots.
+ * <p>
+ * Syntax: {@code {{name}}} inserts a value HTML-escaped, {@code {{{name}}}} inserts it raw,
+ * and {@code {{> file.html}}} includes another template (nested templates are inlined at compile
+ * time, so they cost nothing per render). Rendering measures the output first and then encodes
+ * every slot value straight into one exactly sized byte[]; no intermediate Strings are built.
+ * Raw slots also take byte[] values holding already encoded UTF-8, which are copied as is.
+ * <p>
+ * Immutable and thread-safe once compiled.
+ */
+public final class Template {
+
+    /** How a slot value is written into the output. */
+    public enum Escape {
+        HTML,
+        RAW
+    }
+
+    private static final int MAX_INCLUDE_DEPTH = 8;
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUOT = "&quot;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] APOS = "&#39;".getBytes(StandardCharsets.US_ASCII);
+
+    /** literals[i] precedes slot i; the last literal follows the last slot. */
+    private final byte[][] literals;
+    private final String[] slotNames;
+    private final Escape[] slotEscapes;
+    private final int literalBytes;
+
+    private Template(List<byte[]> literals, List<String> slotNames, List<Escape> slotEscapes) {
+        this.literals = literals.toArray(new byte[0][]);
+        this.slotNames = slotNames.toArray(new String[0]);
+        this.slotEscapes = slotEscapes.toArray(new Escape[0]);
+        int total = 0;
+        for (byte[] literal : this.literals) {
+            total += literal.length;
+        }
+        this.literalBytes = total;
+    }
+
+    /**
+     * Compiles a template without includes.
+     *
+     * @throws IllegalArgumentException on an unterminated tag or an include
+     */
+    public static Template compile(String source) {
+        return compile(source, name -> null);
+    }
+
+    /**
+     * @param includes resolves an include name to template source, or null if it does not exist
+     * @throws IllegalArgumentException on an unterminated tag, a missing include or include cycles
+     */
+    public static Template compile(String source, Function<String, String> includes) {
+        Builder builder = new Builder(includes);
+        builder.parse(source, 0);
+        return builder.build();
+    }
+
+    /**
+     * Loads and compiles a classpath template; includes are resolved next to it.
+     *
+     * @return the template, or null if the resource does not exist
+     * @throws IllegalArgumentException if the template or one of its includes is invalid
+     */
+    public static Template load(ClassLoader loader, String path) {
+        String source = readResource(loader, path);
+        if (source == null) {
+            return null;
+        }
+        String base = path.substring(0, path.lastIndexOf('/') + 1);
+        return compile(source, name -> readResource(loader, base + name));
+    }
+
+    /**
+     * Loads and compiles a template file; includes are resolved in the same directory.
+     *
+     * @throws IOException if the template file cannot be read
+     * @throws IllegalArgumentException if the template or one of its includes is invalid
+     */
+    public static Template load(Path file) throws IOException {
+        String source = Files.readString(file);
+        Path directory = file.getParent();
+        return compile(source, name -> {
+            try {
+                return Files.readString(directory.resolve(name));
+            } catch (IOException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Slot names in document order; a name appears once per occurrence.
+     */
+    public List<String> slots() {
+        return List.of(slotNames);
+    }
+
+    /**
+     * Renders with values looked up by slot name. Values are Strings, or byte[] (UTF-8) for raw
+     * slots. Missing (null) values render as empty.
+     *
+     * @throws IllegalArgumentException if a value has another type, or is a byte[] for an escaped slot
+     */
+    public byte[] render(Map<String, ?> values) {
+        Object[] resolved = new Object[slotNames.length];
+        for (int i = 0; i < slotNames.length; i++) {
+            Object value = values.get(slotNames[i]);
+            if (value != null && !(value instanceof String)
+                    && !(value instanceof byte[] && slotEscapes[i] == Escape.RAW)) {
+                throw new IllegalArgumentException("Unsupported value for slot " + slotNames[i]);
+            }
+            resolved[i] = value;
+        }
+        int length = literalBytes;
+        for (int i = 0; i < resolved.length; i++) {
+            length += encodedLength(resolved[i], slotEscapes[i]);
+        }
+        byte[] out = new byte[length];
+        int pos = 0;
+        for (int i = 0; i < resolved.length; i++) {
+            pos = put(out, pos, literals[i]);
+            pos = encode(resolved[i], slotEscapes[i], out, pos);
+        }
+        put(out, pos, literals[resolved.length]);
+        return out;
+    }
+
+    /**
+     * HTML-escapes text for use in element content or a quoted attribute.
+     */
+    public static String escapeHtml(String text) {
+        if (text == null) {
+            return "";
+        }
+        int length = encodedLength(text, Escape.HTML);
+        if (length == encodedLength(text, Escape.RAW)) {
+            return text;
+        }
+        byte[] out = new byte[length];
+        encode(text, Escape.HTML, out, 0);
+        return new String(out, StandardCharsets.UTF_8);
+    }
+
+    private static int put(byte[] out, int pos, byte[] bytes) {
+        System.arraycopy(bytes, 0, out, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    private static byte[] escapeFor(char c) {
+        return switch (c) {
+            case '&' -> AMP;
+            case '<' -> LT;
+            case '>' -> GT;
+            case '"' -> QUOT;
+            case '\'' -> APOS;
+            default -> null;
+        };
+    }
+
+    private static int encodedLength(Object value, Escape escape) {
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        return value != null ? encodedLength((String) value, escape) : 0;
+    }
+
+    private static int encode(Object value, Escape escape, byte[] out, int pos) {
+        if (value instanceof byte[] bytes) {
+            return put(out, pos, bytes);
+        }
+        return value != null ? encode((String) value, escape, out, pos) : pos;
+    }
+
+    private static int encodedLength(String value, Escape escape) {
+        int length = 0;
+        int n = value.length();
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte[] entity = escape == Escape.HTML ? escapeFor(c) : null;
+                length += entity != null ? entity.length : 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * UTF-8 encodes value into out; unpaired surrogates become '?' like String.getBytes does.
+     */
+    private static int encode(String value, Escape escape, byte[] out, int pos) {
+        int n = value.length();
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte[] entity = escape == Escape.HTML ? escapeFor(c) : null;
+                if (entity != null) {
+                    pos = put(out, pos, entity);
+                } else {
+                    out[pos++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (cp >> 18));
+                out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private static String readResource(ClassLoader loader, String path) {
+        try (InputStream in = loader.getResourceAsStream(path)) {
+            return in != null ? new String(in.readAllBytes(), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collects literal text across includes and splits it at slots.
+     */
+    private static final class Builder {
+        private final Function<String, String> includes;
+        private final List<byte[]> literals = new ArrayList<>();
+        private final List<String> slotNames = new ArrayList<>();
+        private final List<Escape> slotEscapes = new ArrayList<>();
+        private final StringBuilder literal = new StringBuilder();
+
+        Builder(Function<String, String> includes) {
+            this.includes = includes;
+        }
+
+        void parse(String source, int depth) {
+            int pos = 0;
+            while (true) {
+                int open = source.indexOf("{{", pos);
+                if (open < 0) {
+                    literal.append(source, pos, source.length());
+                    return;
+                }
+                literal.append(source, pos, open);
+                boolean raw = source.startsWith("{{{", open);
+                String close = raw ? "}}}" : "}}";
+                int tagStart = open + (raw ? 3 : 2);
+                int end = source.indexOf(close, tagStart);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated template tag at offset " + open);
+                }
+                String tag = source.substring(tagStart, end).trim();
+                if (!raw && tag.startsWith(">")) {
+                    include(tag.substring(1).trim(), depth);
+                } else if (tag.isEmpty()) {
+                    throw new IllegalArgumentException("Empty template tag at offset " + open);
+                } else {
+                    literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+                    literal.setLength(0);
+                    slotNames.add(tag);
+                    slotEscapes.add(raw ? Escape.RAW : Escape.HTML);
+                }
+                pos = end + close.length();
+            }
+        }
+
+        private void include(String name, int depth) {
+            if (depth >= MAX_INCLUDE_DEPTH) {
+                throw new IllegalArgumentException("Template includes nested too deeply at " + name);
+            }
+            String source = includes.apply(name);
+            if (source == null) {
+                throw new IllegalArgumentException("Template include not found: " + name);
+            }
+            parse(source, depth + 1);
+        }
+
+        Template build() {
+            literals.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+            return new Template(literals, slotNames, slotEscapes);
+        }
+    }
+}
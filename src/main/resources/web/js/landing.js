@@ -1,5 +1,6 @@
 /**
- * Fetches JVM metrics from /api/metrics and updates the Live Metrics dashboard.
+ * Receives JVM metrics from /api/metrics/stream (server-sent events) and updates the Live Metrics
+ * dashboard. Falls back to polling /api/metrics when EventSource is unavailable or the stream fails.
  * Gracefully degrades if the API is not available.
  */
 (function () {
@@ -30,19 +31,43 @@
     if (threadSparkEl) threadSparkEl.textContent = data.threadCount ?? '—';
   };
 
+  const showUnavailable = () => {
+    heapUsedEl.textContent = '—';
+    heapMaxEl.textContent = '—';
+    heapBarEl.style.width = '0%';
+    if (threadCountEl) threadCountEl.textContent = '—';
+    if (threadSparkEl) threadSparkEl.textContent = '—';
+  };
+
   const poll = () => {
     fetch('/api/metrics')
       .then((res) => (res.ok ? res.json() : Promise.reject()))
       .then(updateMetrics)
-      .catch(() => {
-        heapUsedEl.textContent = '—';
-        heapMaxEl.textContent = '—';
-        heapBarEl.style.width = '0%';
-        if (threadCountEl) threadCountEl.textContent = '—';
-        if (threadSparkEl) threadSparkEl.textContent = '—';
-      });
+      .catch(showUnavailable);
+  };
+
+  const startPolling = () => {
+    poll();
+    setInterval(poll, 2000);
   };
 
-  poll();
-  setInterval(poll, 2000);
+  if (!window.EventSource) {
+    startPolling();
+    return;
+  }
+
+  const source = new EventSource('/api/metrics/stream');
+  source.onmessage = (event) => {
+    try {
+      updateMetrics(JSON.parse(event.data));
+    } catch (e) {
+      showUnavailable();
+    }
+  };
+  source.onerror = () => {
+    // The browser reconnects on its own; only give up when it has closed the stream for good.
+    if (source.readyState === EventSource.CLOSED) {
+      startPolling();
+    }
+  };
 })();
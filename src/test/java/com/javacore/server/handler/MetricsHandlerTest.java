@@ -0,0 +1,56 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsHandlerTest {
+
+    private static long samplerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("metrics-sampler") && thread.isAlive())
+                .count();
+    }
+
+    private static void awaitSamplerThreads(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (samplerThreads() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, samplerThreads());
+    }
+
+    @Test
+    void servesJsonWithoutStartingThread() throws InterruptedException {
+        long before = samplerThreads();
+        MetricsHandler handler = new MetricsHandler();
+        HttpResponse res = new HttpResponse();
+
+        handler.handle(HttpRequest.of("GET", "/api/metrics", Map.of(), new byte[0]), res);
+
+        ByteBuffer body = res.getBodyBuffers()[0];
+        String json = StandardCharsets.UTF_8.decode(body.duplicate()).toString();
+        assertTrue(json.startsWith("{") && json.endsWith("}"), json);
+        awaitSamplerThreads(before);
+    }
+
+    @Test
+    void stopEndsSamplerThread() throws InterruptedException {
+        long before = samplerThreads();
+        MetricsHandler handler = new MetricsHandler(null, null, 50);
+
+        handler.start();
+        handler.start();
+        awaitSamplerThreads(before + 1);
+
+        handler.stop();
+        awaitSamplerThreads(before);
+    }
+}
@@ -0,0 +1,119 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.BodyStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsSamplerTest {
+
+    private static MetricsSampler.Encoded encoded(int sample) {
+        return new MetricsSampler.Encoded(
+                ("{\"sample\":" + sample + "}").getBytes(StandardCharsets.UTF_8),
+                ("sample " + sample + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void requestsShareTheLatestSampleInsteadOfSampling() throws InterruptedException {
+        AtomicInteger samples = new AtomicInteger();
+        MetricsSampler sampler = new MetricsSampler(() -> encoded(samples.incrementAndGet()), 60_000);
+        sampler.start();
+        try {
+            await(() -> samples.get() == 1);
+
+            ByteBuffer first = sampler.latestJson();
+            first.position(first.limit());
+            assertEquals("{\"sample\":1}", text(sampler.latestJson()));
+            assertEquals("sample 1\n", text(sampler.latestText()));
+            assertTrue(sampler.latestJson().isReadOnly());
+            assertEquals(1, samples.get());
+        } finally {
+            sampler.stop();
+        }
+    }
+
+    @Test
+    void samplesOnDemandUntilStarted() {
+        AtomicInteger samples = new AtomicInteger();
+        MetricsSampler sampler = new MetricsSampler(() -> encoded(samples.incrementAndGet()), 60_000);
+
+        assertEquals("{\"sample\":1}", text(sampler.latestJson()));
+        assertEquals("{\"sample\":2}", text(sampler.latestJson()));
+    }
+
+    @Test
+    void keepsSamplingAfterAFailedTick() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        MetricsSampler sampler = new MetricsSampler(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("first sample fails");
+            }
+            return encoded(calls.get());
+        }, 10);
+        sampler.start();
+        try {
+            await(() -> calls.get() >= 3);
+        } finally {
+            sampler.stop();
+        }
+    }
+
+    @Test
+    void subscriberGetsRetryPreludeThenEachNewSample() throws Exception {
+        AtomicInteger samples = new AtomicInteger();
+        MetricsSampler sampler = new MetricsSampler(() -> encoded(samples.incrementAndGet()), 60_000);
+        AtomicInteger resumes = new AtomicInteger();
+        BodyStream stream = sampler.subscribe();
+        stream.setResumeCallback(resumes::incrementAndGet);
+
+        assertEquals("retry: 60000\n\n", text(stream.next()));
+        assertSame(BodyStream.NOT_READY, stream.next());
+
+        sampler.start();
+        try {
+            await(() -> resumes.get() == 1);
+            assertEquals("data: {\"sample\":1}\n\n", text(stream.next()));
+            assertSame(BodyStream.NOT_READY, stream.next());
+        } finally {
+            sampler.stop();
+            stream.close();
+        }
+    }
+
+    @Test
+    void dropsSubscriberThatFallsBehind() throws Exception {
+        AtomicInteger samples = new AtomicInteger();
+        MetricsSampler sampler = new MetricsSampler(() -> encoded(samples.incrementAndGet()), 5);
+        BodyStream stream = sampler.subscribe();
+        stream.next();
+
+        sampler.start();
+        try {
+            await(() -> samples.get() > 5);
+            assertThrows(IOException.class, stream::next);
+        } finally {
+            sampler.stop();
+        }
+    }
+}
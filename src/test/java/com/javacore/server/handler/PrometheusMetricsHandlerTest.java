@@ -0,0 +1,89 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.ServerMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrometheusMetricsHandlerTest {
+
+    private static String scrape() {
+        ServerMetrics serverMetrics = new ServerMetrics();
+        long now = System.nanoTime();
+        serverMetrics.routes().route("/topics/{slug}").handler().record(1_500_000, now);
+        MetricsHandler metrics = new MetricsHandler(new StaticAssetCache(1024), serverMetrics);
+        HttpResponse res = new HttpResponse();
+        new PrometheusMetricsHandler(metrics).handle(HttpRequest.of("GET", "/metrics", Map.of(), new byte[0]), res);
+        assertEquals("text/plain; version=0.0.4; charset=utf-8", res.getHeaders().get("Content-Type"));
+        return StandardCharsets.UTF_8.decode(res.getBodyBuffers()[0].duplicate()).toString();
+    }
+
+    /**
+     * Family name a sample line belongs to, given the declared families.
+     */
+    private static String familyOf(String sample, Map<String, String> types) {
+        int end = sample.indexOf('{');
+        String name = sample.substring(0, end >= 0 ? end : sample.indexOf(' '));
+        if (types.containsKey(name)) {
+            return name;
+        }
+        for (String suffix : new String[]{"_sum", "_count"}) {
+            if (name.endsWith(suffix)) {
+                String base = name.substring(0, name.length() - suffix.length());
+                if ("summary".equals(types.get(base))) {
+                    return base;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void familiesAreDeclaredOnceAndDoNotCollide() {
+        String text = scrape();
+        Map<String, String> types = new HashMap<>();
+        for (String line : text.split("\n")) {
+            if (line.startsWith("# TYPE ")) {
+                String[] parts = line.split(" ");
+                assertNull(types.put(parts[2], parts[3]), "duplicate family " + parts[2]);
+            }
+        }
+        assertFalse(types.isEmpty());
+        for (Map.Entry<String, String> family : types.entrySet()) {
+            String name = family.getKey();
+            if (family.getValue().equals("counter")) {
+                assertTrue(name.endsWith("_total"), name);
+                // A counter's family is its name without _total; nothing else may use that name.
+                assertFalse(types.containsKey(name.substring(0, name.length() - "_total".length())), name);
+            }
+            if (family.getValue().equals("summary")) {
+                assertFalse(types.containsKey(name + "_sum") || types.containsKey(name + "_count"), name);
+            }
+        }
+        for (String line : text.split("\n")) {
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                assertNotNull(familyOf(line, types), "undeclared sample " + line);
+            }
+        }
+    }
+
+    @Test
+    void reportsLoadedClassesAsGaugeAndCounter() {
+        String text = scrape();
+
+        assertTrue(text.contains("# TYPE jvm_classes_currently_loaded gauge\n"));
+        assertTrue(text.contains("# TYPE jvm_classes_loaded_total counter\n"));
+        assertFalse(text.contains("# TYPE jvm_classes_loaded gauge"));
+        assertTrue(text.contains("route=\"/topics/{slug}\""));
+    }
+}
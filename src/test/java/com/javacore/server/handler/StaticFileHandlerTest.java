@@ -0,0 +1,140 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.ConditionalGet;
+import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.Validators;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticFileHandlerTest {
+
+    private static HttpRequest get(String path, Map<String, String> headers) {
+        return HttpRequest.of("GET", path, headers, new byte[0]);
+    }
+
+    private static byte[] resource(String path) throws IOException {
+        try (InputStream in = StaticFileHandlerTest.class.getClassLoader().getResourceAsStream(path)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void servesIdentityWithoutCachingWhenCacheIsDisabled() throws IOException {
+        StaticAssetCache cache = new StaticAssetCache(0);
+        StaticFileHandler handler = new StaticFileHandler(cache);
+        HttpResponse res = new HttpResponse();
+
+        handler.handle(get("/css/style.css", Map.of()), res);
+
+        assertEquals(200, res.getStatusCode());
+        assertNull(res.getPrebuilt());
+        assertNull(res.getHeaders().get("Content-Encoding"));
+        assertArrayEquals(resource("web/css/style.css"), res.getBody());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    void compressesOnlyNegotiatedCodingWhenCacheIsDisabled() throws IOException {
+        StaticFileHandler handler = new StaticFileHandler(new StaticAssetCache(0));
+        HttpResponse res = new HttpResponse();
+
+        handler.handle(get("/css/style.css", Map.of("Accept-Encoding", "deflate;q=0.5, gzip")), res);
+
+        assertEquals("gzip", res.getHeaders().get("Content-Encoding"));
+        assertEquals("Accept-Encoding", res.getHeaders().get("Vary"));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(res.getBody()))) {
+            assertArrayEquals(resource("web/css/style.css"), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void cachesResourceThatFits() {
+        StaticAssetCache cache = new StaticAssetCache(1 << 20);
+        StaticFileHandler handler = new StaticFileHandler(cache);
+        HttpResponse res = new HttpResponse();
+
+        handler.handle(get("/css/style.css", Map.of()), res);
+
+        assertNotNull(res.getPrebuilt());
+        assertEquals(1, cache.stats().entries());
+        assertNotNull(handler.validators(get("/css/style.css", Map.of())));
+    }
+
+    @Test
+    void rejectsDirectoriesInDocumentRootMode(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("docs"));
+        Files.writeString(root.resolve("docs/page.txt"), "text");
+        StaticFileHandler handler = new StaticFileHandler(new StaticAssetCache(1 << 20), root);
+
+        assertNull(handler.validators(get("/docs", Map.of())));
+        HttpResponse res = new HttpResponse();
+        handler.handle(get("/docs", Map.of()), res);
+        assertEquals(404, res.getStatusCode());
+
+        assertNotNull(handler.validators(get("/docs/page.txt", Map.of())));
+    }
+
+    @Test
+    void sendsFromDiskWhenCacheIsDisabledInDocumentRootMode(@TempDir Path root) throws IOException {
+        Files.writeString(root.resolve("style.css"), "body { color: black; }\n".repeat(40));
+        StaticFileHandler handler = new StaticFileHandler(new StaticAssetCache(0), root);
+        HttpResponse res = new HttpResponse();
+
+        handler.handle(get("/style.css", Map.of("Accept-Encoding", "gzip")), res);
+
+        assertNotNull(res.getBodyFile());
+        assertNull(res.getHeaders().get("Content-Encoding"));
+        assertNotNull(handler.validators(get("/style.css", Map.of())));
+    }
+
+    @Test
+    void revalidatesResourceTheCacheCannotHold() {
+        StaticFileHandler handler = new StaticFileHandler(new StaticAssetCache(0));
+        HttpResponse res = new HttpResponse();
+        handler.handle(get("/css/style.css", Map.of("Accept-Encoding", "gzip")), res);
+        String etag = res.getHeaders().get("ETag");
+        String lastModified = res.getHeaders().get("Last-Modified");
+        assertNotNull(etag);
+
+        assertNull(handler.validators(get("/css/style.css", Map.of("Accept-Encoding", "gzip"))));
+        HttpRequest byTag = get("/css/style.css", Map.of("Accept-Encoding", "gzip", "If-None-Match", etag));
+        Validators validators = handler.validators(byTag);
+        assertNotNull(validators);
+        assertEquals(etag, validators.getEtag());
+        assertTrue(ConditionalGet.isNotModified(byTag, validators));
+
+        HttpRequest otherCoding = get("/css/style.css", Map.of("If-None-Match", etag));
+        assertFalse(ConditionalGet.isNotModified(otherCoding, handler.validators(otherCoding)));
+
+        HttpRequest byDate = get("/css/style.css", Map.of("If-Modified-Since", lastModified));
+        assertTrue(ConditionalGet.isNotModified(byDate, handler.validators(byDate)));
+    }
+
+    @Test
+    void revalidatesLargeFileSentFromDisk(@TempDir Path root) throws IOException {
+        Files.writeString(root.resolve("big.css"), "body { color: black; }\n".repeat(20_000));
+        StaticFileHandler handler = new StaticFileHandler(new StaticAssetCache(32L << 20), root);
+        HttpResponse res = new HttpResponse();
+        handler.handle(get("/big.css", Map.of()), res);
+        assertNotNull(res.getBodyFile());
+
+        HttpRequest conditional = get("/big.css", Map.of("If-None-Match", res.getHeaders().get("ETag")));
+        assertTrue(ConditionalGet.isNotModified(conditional, handler.validators(conditional)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.javacore.server.handler;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+import com.javacore.server.server.Validators;
+import com.javacore.server.topic.FragmentStore;
+import com.javacore.server.topic.JavaCoreTopic;
+import com.javacore.server.topic.TopicRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopicPageHandlerTest {
+
+    private static final long LAYOUT_TIME = 1_600_000_000_000L;
+    private static final long FRAGMENT_TIME = 1_650_000_000_000L;
+
+    @AfterEach
+    void resetFragments() {
+        FragmentStore.shared().setDocumentRoot(null);
+    }
+
+    private static HttpRequest get(JavaCoreTopic topic) {
+        return HttpRequest.of("GET", "/topics/" + topic.getSlug(), Map.of(), new byte[0])
+                .withPathParams(Map.of("slug", topic.getSlug()));
+    }
+
+    @Test
+    void lastModifiedComesFromNewestSource(@TempDir Path root) throws IOException {
+        JavaCoreTopic topic = TopicRegistry.getAll().stream()
+                .filter(t -> !t.getFragments().isEmpty())
+                .findFirst()
+                .orElseThrow();
+        Path topics = Files.createDirectories(root.resolve("topics"));
+        Path layout = Files.writeString(topics.resolve("_layout.html"), "<title>{{title}}</title>{{{content}}}");
+        Files.setLastModifiedTime(layout, FileTime.fromMillis(LAYOUT_TIME));
+        Path directory = Files.createDirectories(topics.resolve(topic.getSlug()));
+        for (String fragment : topic.getFragments()) {
+            Path file = Files.writeString(directory.resolve(fragment), "<p>" + fragment + "</p>");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(LAYOUT_TIME));
+        }
+        Files.setLastModifiedTime(directory.resolve(topic.getFragments().get(0)), FileTime.fromMillis(FRAGMENT_TIME));
+        FragmentStore.shared().setDocumentRoot(root);
+        TopicPageHandler handler = new TopicPageHandler(root);
+
+        HttpResponse res = new HttpResponse();
+        handler.handle(get(topic), res);
+
+        assertEquals(200, res.getStatusCode());
+        Validators validators = handler.validators(get(topic));
+        assertNotNull(validators);
+        assertEquals(Validators.formatHttpDate(FRAGMENT_TIME), validators.getLastModifiedHttpDate());
+    }
+
+    @Test
+    void recordsColdStartOnFirstServedPageOnly() {
+        TopicPageHandler handler = new TopicPageHandler();
+        HttpRequest unknown = HttpRequest.of("GET", "/topics/missing", Map.of(), new byte[0])
+                .withPathParams(Map.of("slug", "missing"));
+        handler.handle(unknown, new HttpResponse());
+        assertEquals(-1, handler.firstPageUptimeMillis());
+
+        JavaCoreTopic topic = TopicRegistry.getAll().iterator().next();
+        HttpResponse res = new HttpResponse();
+        handler.handle(get(topic), res);
+
+        assertEquals(200, res.getStatusCode());
+        long first = handler.firstPageUptimeMillis();
+        assertTrue(first >= 0);
+        handler.handle(get(topic), new HttpResponse());
+        assertEquals(first, handler.firstPageUptimeMillis());
+    }
+}
@@ -0,0 +1,96 @@
+package com.javacore.server.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    private static void assertWithin(long expected, long actual, double relative) {
+        assertTrue(Math.abs(actual - expected) <= expected * relative,
+                "expected " + expected + " within " + relative + " but was " + actual);
+    }
+
+    @Test
+    void reportsPercentilesWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000, histogram.max());
+        assertEquals(50_000.5, histogram.mean(), 1e-9);
+        assertWithin(50_000, histogram.valueAt(50), 0.008);
+        assertWithin(99_000, histogram.valueAt(99), 0.008);
+        assertWithin(99_900, histogram.valueAt(99.9), 0.008);
+        assertEquals(100_000, histogram.valueAt(100));
+    }
+
+    @Test
+    void keepsSmallValuesExact() {
+        Histogram histogram = new Histogram();
+        histogram.record(999);
+        histogram.record(42_000);
+        histogram.record(127_999);
+
+        assertEquals(0, histogram.valueAt(1));
+        assertEquals(42, histogram.valueAt(50));
+        assertEquals(127, histogram.valueAt(100));
+    }
+
+    @Test
+    void bucketHoldsItsHighestValue() {
+        for (long micros : new long[]{0, 1, 127, 128, 129, 255, 256, 1_000, 65_535, 1_000_000, (1L << 32) - 1}) {
+            int bucket = Histogram.bucketIndex(micros);
+            long highest = Histogram.highestValue(bucket);
+            assertTrue(highest >= micros, micros + " above its bucket's highest value " + highest);
+            assertEquals(bucket, Histogram.bucketIndex(highest));
+            assertEquals(bucket + 1, Histogram.bucketIndex(highest + 1));
+        }
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucketIndex((1L << 32) - 1));
+    }
+
+    @Test
+    void clampsNegativeAndHugeValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5_000);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.valueAt(50));
+        assertEquals((1L << 32) - 1, histogram.max());
+    }
+
+    @Test
+    void mergesWorkerHistograms() {
+        Histogram first = new Histogram();
+        Histogram second = new Histogram();
+        for (int i = 0; i < 90; i++) {
+            first.record(1_000_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            second.record(50_000_000);
+        }
+
+        Histogram total = new Histogram();
+        total.add(first);
+        total.add(second);
+
+        assertEquals(100, total.count());
+        assertEquals(50_000, total.max());
+        assertEquals(5_900, total.mean(), 1e-9);
+        assertWithin(1_000, total.valueAt(90), 0.008);
+        assertWithin(50_000, total.valueAt(91), 0.008);
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAt(99));
+        assertEquals(0, histogram.mean());
+    }
+}
@@ -0,0 +1,60 @@
+package com.javacore.server.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class LoadConfigTest {
+
+    @Test
+    void parsesTargetAsHostAndPortOrPort() {
+        LoadConfig config = LoadConfig.defaults().setTarget("example.org:8080");
+        assertEquals("example.org", config.getHost());
+        assertEquals(8080, config.getPort());
+
+        config.setTarget("9000");
+        assertEquals("example.org", config.getHost());
+        assertEquals(9000, config.getPort());
+    }
+
+    @Test
+    void clampsSettingsToUsableValues() {
+        LoadConfig config = LoadConfig.defaults()
+                .setConnections(0)
+                .setThreads(8)
+                .setDurationSeconds(0)
+                .setWarmupSeconds(-1)
+                .setRate(-100);
+
+        assertEquals(1, config.getConnections());
+        assertEquals(1, config.getThreads());
+        assertEquals(1, config.getDurationSeconds());
+        assertEquals(0, config.getWarmupSeconds());
+        assertEquals(0, config.getRate());
+    }
+
+    @Test
+    void readsOverridesFromSystemProperties() {
+        System.setProperty("load.connections", "64");
+        System.setProperty("load.rate", " 2000 ");
+        System.setProperty("load.durationSeconds", "soon");
+        System.setProperty("load.keepAlive", "false");
+        System.setProperty("load.mix", "/a=1");
+        try {
+            LoadConfig config = LoadConfig.fromSystemProperties();
+
+            assertEquals(64, config.getConnections());
+            assertEquals(2000, config.getRate());
+            assertEquals(LoadConfig.defaults().getDurationSeconds(), config.getDurationSeconds());
+            assertFalse(config.isKeepAlive());
+            assertEquals("/a=1", config.getMix());
+        } finally {
+            System.clearProperty("load.connections");
+            System.clearProperty("load.rate");
+            System.clearProperty("load.durationSeconds");
+            System.clearProperty("load.keepAlive");
+            System.clearProperty("load.mix");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.javacore.server.loadgen;
+
+import com.javacore.server.server.Router;
+import com.javacore.server.server.ServerConfig;
+import com.javacore.server.server.TestServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGeneratorTest {
+
+    private static Router router() {
+        Router router = new Router();
+        router.add("GET", "/hello", (req, res) -> res.setBody("hello"));
+        return router;
+    }
+
+    private static LoadConfig config(TestServer server) {
+        return LoadConfig.defaults()
+                .setHost("localhost")
+                .setPort(server.port())
+                .setConnections(4)
+                .setThreads(2)
+                .setWarmupSeconds(0)
+                .setDurationSeconds(1)
+                .setMix("/hello=3,/missing=1");
+    }
+
+    private static void assertNoErrors(LoadGenerator.Result result) {
+        assertEquals(0, result.connectErrors());
+        assertEquals(0, result.ioErrors());
+        assertEquals(0, result.protocolErrors());
+    }
+
+    private static long pathTotal(LoadGenerator.Result result) {
+        return result.paths().stream().mapToLong(LoadGenerator.PathCount::count).sum();
+    }
+
+    @Test
+    void closedLoopCountsResponsesByStatusAndPath() throws Exception {
+        try (TestServer server = new TestServer(router(), ServerConfig.defaults())) {
+            LoadGenerator generator = new LoadGenerator(config(server));
+            LoadGenerator.Result result = generator.run();
+
+            assertNoErrors(result);
+            assertTrue(result.completed() > 100, "completed " + result.completed());
+            assertEquals(result.completed(), result.statusClasses()[2] + result.statusClasses()[4]);
+            assertTrue(result.statusClasses()[2] > result.statusClasses()[4]);
+            assertEquals(result.completed(), pathTotal(result));
+            assertEquals(result.completed(), result.latency().count());
+            assertTrue(result.bytesRead() > 0);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            generator.print(result, new PrintStream(out, true, StandardCharsets.UTF_8));
+            String report = out.toString(StandardCharsets.UTF_8);
+            assertTrue(report.contains("closed loop"), report);
+            assertTrue(report.contains("Latency distribution"), report);
+            assertTrue(report.contains("/missing"), report);
+        }
+    }
+
+    @Test
+    void openLoopSendsAtTheConfiguredRate() throws Exception {
+        try (TestServer server = new TestServer(router(), ServerConfig.defaults())) {
+            LoadGenerator.Result result = new LoadGenerator(config(server).setRate(200)).run();
+
+            assertNoErrors(result);
+            assertTrue(result.completed() >= 150 && result.completed() <= 250, "completed " + result.completed());
+            assertEquals(result.completed(), result.serviceTime().count());
+            assertTrue(result.latency().valueAt(100) >= result.serviceTime().valueAt(50));
+        }
+    }
+
+    @Test
+    void opensNewConnectionPerRequestWithoutKeepAlive() throws Exception {
+        try (TestServer server = new TestServer(router(), ServerConfig.defaults())) {
+            LoadGenerator.Result result = new LoadGenerator(config(server).setKeepAlive(false)).run();
+
+            assertNoErrors(result);
+            assertTrue(result.completed() > 10, "completed " + result.completed());
+            assertEquals(result.completed(), pathTotal(result));
+        }
+    }
+
+    @Test
+    void rejectsInvalidMixBeforeConnecting() {
+        LoadGenerator generator = new LoadGenerator(LoadConfig.defaults().setMix("nothing=1"));
+
+        assertThrows(IllegalArgumentException.class, generator::run);
+    }
+}
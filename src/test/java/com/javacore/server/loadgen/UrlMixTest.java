@@ -0,0 +1,67 @@
+package com.javacore.server.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UrlMixTest {
+
+    @Test
+    void picksPathsInProportionToTheirWeights() {
+        UrlMix mix = new UrlMix("/a=3, /b=1");
+        assertEquals(List.of("/a", "/b"), mix.paths());
+
+        SplittableRandom random = new SplittableRandom(42);
+        int[] picks = new int[2];
+        for (int i = 0; i < 100_000; i++) {
+            picks[mix.pick(random)]++;
+        }
+        assertEquals(0.75, picks[0] / 100_000.0, 0.01);
+    }
+
+    @Test
+    void sharesGroupWeightEvenlyByItsPaths() {
+        UrlMix mix = new UrlMix("static=4,/only=4");
+        assertEquals(List.of("/", "/css/style.css", "/js/landing.js", "/favicon.svg", "/only"), mix.paths());
+        assertEquals("static", mix.group(0));
+        assertEquals("/only", mix.group(4));
+
+        SplittableRandom random = new SplittableRandom(7);
+        int[] picks = new int[mix.paths().size()];
+        for (int i = 0; i < 100_000; i++) {
+            picks[mix.pick(random)]++;
+        }
+        assertEquals(0.5, picks[4] / 100_000.0, 0.01);
+        assertEquals(0.125, picks[0] / 100_000.0, 0.01);
+    }
+
+    @Test
+    void expandsTopicsToEveryTopicPage() {
+        UrlMix mix = new UrlMix("topics");
+
+        assertFalse(mix.paths().isEmpty());
+        assertTrue(mix.paths().stream().allMatch(path -> path.startsWith("/topics/")));
+    }
+
+    @Test
+    void skipsEntriesWithoutPositiveWeight() {
+        UrlMix mix = new UrlMix("metrics=0,/a=1,,");
+
+        assertEquals(List.of("/a"), mix.paths());
+        assertEquals(0, mix.pick(new SplittableRandom(1)));
+    }
+
+    @Test
+    void rejectsInvalidSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> new UrlMix("unknown=1"));
+        assertThrows(IllegalArgumentException.class, () -> new UrlMix("/a=many"));
+        assertThrows(IllegalArgumentException.class, () -> new UrlMix("/a=0"));
+        assertThrows(IllegalArgumentException.class, () -> new UrlMix(""));
+    }
+}
@@ -0,0 +1,204 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyStreamTest {
+
+    private static final String TEXT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    private static List<ByteBuffer> chunks(int count) {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String chunk = i % 7 == 0 ? "" : TEXT.substring(0, i % TEXT.length());
+            chunks.add(ByteBuffer.wrap(chunk.getBytes(StandardCharsets.US_ASCII)));
+        }
+        return chunks;
+    }
+
+    private static String joined(List<ByteBuffer> chunks) {
+        StringBuilder text = new StringBuilder();
+        for (ByteBuffer chunk : chunks) {
+            text.append(StandardCharsets.US_ASCII.decode(chunk.duplicate()));
+        }
+        return text.toString();
+    }
+
+    private static void send(Socket socket, String requests) throws Exception {
+        socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void sendsUnknownLengthStreamChunkedAndKeepsConnection() throws Exception {
+        String expected = joined(chunks(2_000));
+        Router router = new Router();
+        router.add("GET", "/stream", (req, res) -> res.setBodyStream(BodyStream.of(chunks(2_000).iterator())));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            String request = "GET /stream HTTP/1.1\r\nHost: x\r\n\r\n";
+            send(socket, request + request);
+            InputStream in = socket.getInputStream();
+
+            for (int i = 0; i < 2; i++) {
+                TestServer.Response response = TestServer.readChunkedResponse(in);
+                assertEquals("chunked", response.header("Transfer-Encoding"));
+                assertNull(response.header("Content-Length"));
+                assertEquals(expected, response.text());
+            }
+        }
+    }
+
+    @Test
+    void sendsKnownLengthStreamWithContentLength() throws Exception {
+        String expected = joined(chunks(500));
+        Router router = new Router();
+        router.add("GET", "/stream", (req, res) ->
+                res.setBodyStream(BodyStream.of(chunks(500).iterator()), expected.length()));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            send(socket, "GET /stream HTTP/1.1\r\nHost: x\r\n\r\n");
+
+            TestServer.Response response = TestServer.readResponse(socket.getInputStream(), false);
+            assertNull(response.header("Transfer-Encoding"));
+            assertEquals(String.valueOf(expected.length()), response.header("Content-Length"));
+            assertEquals(expected, response.text());
+        }
+    }
+
+    @Test
+    void delimitsStreamByCloseForHttp10() throws Exception {
+        String expected = joined(chunks(100));
+        Router router = new Router();
+        router.add("GET", "/stream", (req, res) -> res.setBodyStream(BodyStream.of(chunks(100).iterator())));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            send(socket, "GET /stream HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+            InputStream in = socket.getInputStream();
+
+            TestServer.Response head = TestServer.readResponse(in, true);
+            assertNull(head.header("Transfer-Encoding"));
+            assertNull(head.header("Content-Length"));
+            assertEquals("close", head.header("Connection"));
+            assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void closesConnectionAndStreamWhenStreamEndsShortOfLength() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        Router router = new Router();
+        router.add("GET", "/short", (req, res) -> res.setBodyStream(new BodyStream() {
+            private boolean sent;
+
+            @Override
+            public ByteBuffer next() {
+                if (sent) {
+                    return null;
+                }
+                sent = true;
+                return ByteBuffer.wrap("only ten b".getBytes(StandardCharsets.US_ASCII));
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        }, 100));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            send(socket, "GET /short HTTP/1.1\r\nHost: x\r\n\r\n");
+            InputStream in = socket.getInputStream();
+
+            assertEquals("100", TestServer.readResponse(in, true).header("Content-Length"));
+            assertEquals("only ten b", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void resumesPausedStreamWhenDataArrives() throws Exception {
+        AtomicReference<Runnable> resume = new AtomicReference<>();
+        AtomicReference<ByteBuffer> pending = new AtomicReference<>();
+        CountDownLatch waiting = new CountDownLatch(1);
+        Router router = new Router();
+        router.add("GET", "/events", (req, res) -> res.setBodyStream(new BodyStream() {
+            private int delivered;
+
+            @Override
+            public ByteBuffer next() {
+                if (delivered == 2) {
+                    return null;
+                }
+                ByteBuffer data = pending.getAndSet(null);
+                if (data == null) {
+                    waiting.countDown();
+                    return NOT_READY;
+                }
+                delivered++;
+                return data;
+            }
+
+            @Override
+            public void setResumeCallback(Runnable callback) {
+                resume.set(callback);
+            }
+        }));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            send(socket, "GET /events HTTP/1.1\r\nHost: x\r\n\r\n");
+            assertTrue(waiting.await(5, TimeUnit.SECONDS));
+
+            pending.set(ByteBuffer.wrap("first;".getBytes(StandardCharsets.US_ASCII)));
+            resume.get().run();
+            Thread.sleep(50);
+            pending.set(ByteBuffer.wrap("second".getBytes(StandardCharsets.US_ASCII)));
+            resume.get().run();
+
+            assertEquals("first;second", TestServer.readChunkedResponse(socket.getInputStream()).text());
+        }
+    }
+
+    @Test
+    void pullsChunksOnlyAsFastAsTheClientReads() throws Exception {
+        AtomicInteger pulled = new AtomicInteger();
+        CountDownLatch closed = new CountDownLatch(1);
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        Router router = new Router();
+        router.add("GET", "/endless", (req, res) -> res.setBodyStream(new BodyStream() {
+            @Override
+            public ByteBuffer next() {
+                pulled.incrementAndGet();
+                return chunk.clear();
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        }));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults())) {
+            try (Socket socket = server.connect()) {
+                send(socket, "GET /endless HTTP/1.1\r\nHost: x\r\n\r\n");
+                Thread.sleep(500);
+
+                // Only what fits the socket buffers was pulled, not an endless stream
+                assertTrue(pulled.get() < 1_000, "pulled " + pulled.get() + " chunks");
+            }
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
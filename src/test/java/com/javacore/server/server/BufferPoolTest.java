@@ -0,0 +1,82 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+    @Test
+    void acquireReturnsClearedDirectBufferOfConfiguredSize() {
+        BufferPool pool = new BufferPool(1024, 32);
+
+        ByteBuffer buffer = pool.acquire();
+        buffer.put((byte) 1).flip();
+        pool.release(buffer);
+        ByteBuffer again = pool.acquire();
+
+        assertSame(buffer, again);
+        assertTrue(again.isDirect());
+        assertEquals(0, again.position());
+        assertEquals(1024, again.limit());
+        assertEquals(1024, again.capacity());
+    }
+
+    @Test
+    void firstMissCarvesASlabServingLaterAcquiresAsHits() {
+        BufferPool pool = new BufferPool(256, 32);
+
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        first.put(0, (byte) 7);
+
+        assertNotSame(first, second);
+        assertEquals(0, second.get(0));
+        assertEquals(new BufferPool.Stats(1, 1, 2), pool.stats());
+        pool.release(first);
+        pool.release(second);
+        assertEquals(0, pool.stats().inUse());
+    }
+
+    @Test
+    void keepsAtMostMaxBuffers() {
+        BufferPool pool = new BufferPool(64, 16);
+        ByteBuffer[] buffers = new ByteBuffer[20];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.acquire();
+        }
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+
+        for (int i = 0; i < buffers.length; i++) {
+            pool.acquire();
+        }
+
+        BufferPool.Stats stats = pool.stats();
+        assertEquals(16 + 15, stats.hits());
+        assertEquals(1 + 4 + 4, stats.misses());
+    }
+
+    @Test
+    void doesNotPoolForeignBuffers() {
+        BufferPool pool = new BufferPool(128, 16);
+        ByteBuffer heap = ByteBuffer.allocate(128);
+        ByteBuffer small = ByteBuffer.allocateDirect(64);
+        pool.release(heap);
+        pool.release(small);
+        pool.release(null);
+
+        for (int i = 0; i < 16; i++) {
+            ByteBuffer buffer = pool.acquire();
+            assertNotSame(heap, buffer);
+            assertNotSame(small, buffer);
+            assertEquals(128, buffer.capacity());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangesTest {
+
+    private static final byte[] BODY = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+    private static final long MODIFIED = 1_700_000_000_000L;
+    private static final Validators VALIDATORS = new Validators("\"v1\"", MODIFIED, Validators.NO_CACHE, false);
+
+    private static HttpRequest get(Map<String, String> headers) {
+        return HttpRequest.of("GET", "/file.txt", headers, new byte[0]);
+    }
+
+    private static boolean respond(HttpRequest req, HttpResponse res) {
+        return ByteRanges.respond(req, res, ByteBuffer.wrap(BODY).asReadOnlyBuffer(), "text/plain", null, VALIDATORS);
+    }
+
+    private static String bodyText(HttpResponse res) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : res.getBodyBuffers()) {
+            ByteBuffer copy = buffer.duplicate();
+            while (copy.hasRemaining()) {
+                out.write(copy.get());
+            }
+        }
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void parsesRangeForms() {
+        List<long[]> ranges = ByteRanges.parse("bytes=0-4, 10-, -3, 15-100", 20);
+
+        assertEquals(4, ranges.size());
+        assertArrayEquals(new long[]{0, 4}, ranges.get(0));
+        assertArrayEquals(new long[]{10, 19}, ranges.get(1));
+        assertArrayEquals(new long[]{17, 19}, ranges.get(2));
+        assertArrayEquals(new long[]{15, 19}, ranges.get(3));
+    }
+
+    @Test
+    void ignoresMalformedOrForeignRanges() {
+        assertNull(ByteRanges.parse("items=0-4", 20));
+        assertNull(ByteRanges.parse("bytes=5-2", 20));
+        assertNull(ByteRanges.parse("bytes=abc", 20));
+        assertTrue(ByteRanges.parse("bytes=20-30", 20).isEmpty());
+    }
+
+    @Test
+    void singleRangeGives206() {
+        HttpResponse res = new HttpResponse();
+
+        assertTrue(respond(get(Map.of("Range", "bytes=2-5")), res));
+        assertEquals(206, res.getStatusCode());
+        assertEquals("bytes 2-5/20", res.getHeaders().get("Content-Range"));
+        assertEquals("text/plain", res.getHeaders().get("Content-Type"));
+        assertEquals("\"v1\"", res.getHeaders().get("ETag"));
+        assertEquals("2345", bodyText(res));
+        assertEquals(4, res.getBodyLength());
+    }
+
+    @Test
+    void severalRangesGiveMultipart() {
+        HttpResponse res = new HttpResponse();
+
+        assertTrue(respond(get(Map.of("Range", "bytes=0-1, -2")), res));
+        assertEquals(206, res.getStatusCode());
+        String contentType = res.getHeaders().get("Content-Type");
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        String expected = "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/20\r\n\r\n01"
+                + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 18-19/20\r\n\r\nij"
+                + "\r\n--" + boundary + "--\r\n";
+        assertEquals(expected, bodyText(res));
+        assertNull(res.getHeaders().get("Content-Range"));
+    }
+
+    @Test
+    void unsatisfiableRangeGives416() {
+        HttpResponse res = new HttpResponse();
+
+        assertTrue(respond(get(Map.of("Range", "bytes=50-60")), res));
+        assertEquals(416, res.getStatusCode());
+        assertEquals("bytes */20", res.getHeaders().get("Content-Range"));
+        assertEquals(0, res.getBodyLength());
+    }
+
+    @Test
+    void fullRepresentationWithoutApplicableRange() {
+        assertFalse(respond(get(Map.of()), new HttpResponse()));
+        assertFalse(respond(get(Map.of("Range", "lines=1-2")), new HttpResponse()));
+        assertFalse(respond(HttpRequest.of("HEAD", "/file.txt", Map.of("Range", "bytes=0-1"), new byte[0]),
+                new HttpResponse()));
+    }
+
+    @Test
+    void ifRangeMustMatchValidators() {
+        assertTrue(respond(get(Map.of("Range", "bytes=0-1", "If-Range", "\"v1\"")), new HttpResponse()));
+        assertTrue(respond(get(Map.of("Range", "bytes=0-1", "If-Range", Validators.formatHttpDate(MODIFIED))),
+                new HttpResponse()));
+        assertFalse(respond(get(Map.of("Range", "bytes=0-1", "If-Range", "\"v0\"")), new HttpResponse()));
+        assertFalse(respond(get(Map.of("Range", "bytes=0-1", "If-Range", "W/\"v1\"")), new HttpResponse()));
+    }
+
+    @Test
+    void fileRegionServesSingleRangesOnly() {
+        FileRegion file = new FileRegion(Path.of("file.txt"), 100, 20);
+
+        HttpResponse single = new HttpResponse();
+        assertTrue(ByteRanges.respond(get(Map.of("Range", "bytes=5-")), single, file, "text/plain", VALIDATORS));
+        assertEquals(206, single.getStatusCode());
+        assertEquals(new FileRegion(Path.of("file.txt"), 105, 15), single.getBodyFile());
+
+        assertFalse(ByteRanges.respond(get(Map.of("Range", "bytes=0-1, 4-5")), new HttpResponse(), file,
+                "text/plain", VALIDATORS));
+    }
+}
@@ -0,0 +1,72 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConditionalGetTest {
+
+    private static final long MODIFIED = 1_700_000_000_123L;
+    private static final Validators VALIDATORS = new Validators("\"abc\"", MODIFIED, Validators.NO_CACHE, true);
+
+    private static HttpRequest request(String method, Map<String, String> headers) {
+        return HttpRequest.of(method, "/", headers, new byte[0]);
+    }
+
+    @Test
+    void matchesEntityTag() {
+        assertTrue(ConditionalGet.isNotModified(request("GET", Map.of("If-None-Match", "\"abc\"")), VALIDATORS));
+        assertTrue(ConditionalGet.isNotModified(request("GET", Map.of("If-None-Match", "\"x\", \"abc\"")), VALIDATORS));
+        assertTrue(ConditionalGet.isNotModified(request("GET", Map.of("If-None-Match", "*")), VALIDATORS));
+        assertFalse(ConditionalGet.isNotModified(request("GET", Map.of("If-None-Match", "\"abd\"")), VALIDATORS));
+    }
+
+    @Test
+    void comparesEntityTagsWeakly() {
+        assertTrue(ConditionalGet.isNotModified(request("GET", Map.of("If-None-Match", "W/\"abc\"")), VALIDATORS));
+    }
+
+    @Test
+    void comparesModificationTimeInSeconds() {
+        String lastModified = Validators.formatHttpDate(MODIFIED);
+        String earlier = Validators.formatHttpDate(MODIFIED - 1000);
+        assertTrue(ConditionalGet.isNotModified(request("GET", Map.of("If-Modified-Since", lastModified)), VALIDATORS));
+        assertFalse(ConditionalGet.isNotModified(request("GET", Map.of("If-Modified-Since", earlier)), VALIDATORS));
+        assertFalse(ConditionalGet.isNotModified(request("GET", Map.of("If-Modified-Since", "not a date")), VALIDATORS));
+    }
+
+    @Test
+    void entityTagTakesPrecedenceOverDate() {
+        Map<String, String> headers = Map.of(
+                "If-None-Match", "\"other\"",
+                "If-Modified-Since", Validators.formatHttpDate(MODIFIED));
+        assertFalse(ConditionalGet.isNotModified(request("GET", headers), VALIDATORS));
+    }
+
+    @Test
+    void appliesToGetAndHeadOnly() {
+        Map<String, String> headers = Map.of("If-None-Match", "\"abc\"");
+        assertTrue(ConditionalGet.isNotModified(request("HEAD", headers), VALIDATORS));
+        assertFalse(ConditionalGet.isNotModified(request("POST", headers), VALIDATORS));
+        assertFalse(ConditionalGet.isNotModified(request("GET", headers), null));
+        assertFalse(ConditionalGet.isNotModified(request("GET", Map.of()), VALIDATORS));
+    }
+
+    @Test
+    void notModifiedCarriesValidatorsWithoutBody() {
+        HttpResponse res = ConditionalGet.notModified(VALIDATORS);
+
+        assertEquals(304, res.getStatusCode());
+        assertEquals("\"abc\"", res.getHeaders().get("ETag"));
+        assertEquals(Validators.formatHttpDate(MODIFIED), res.getHeaders().get("Last-Modified"));
+        assertEquals("Accept-Encoding", res.getHeaders().get("Vary"));
+        assertNull(res.getHeaders().get("Content-Type"));
+        assertArrayEquals(new byte[0], res.getBody());
+    }
+}
@@ -0,0 +1,96 @@
+package com.javacore.server.server;
+
+import com.javacore.server.handler.StaticAssetCache;
+import com.javacore.server.handler.StaticFileHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DocumentRootTest {
+
+    private static TestServer serve(Path root) throws Exception {
+        Router router = new Router();
+        router.add("GET", "/{path*}", new StaticFileHandler(new StaticAssetCache(1 << 20), root));
+        return new TestServer(router, ServerConfig.defaults().setDocumentRoot(root));
+    }
+
+    private static TestServer.Response get(Socket socket, String path, String extraHeaders) throws Exception {
+        socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: x\r\n" + extraHeaders + "\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        return TestServer.readResponse(socket.getInputStream(), false);
+    }
+
+    @Test
+    void sendsLargeFileFromDiskAndKeepsConnectionUsable(@TempDir Path root) throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        Files.write(root.resolve("data.bin"), content);
+        Files.writeString(root.resolve("after.txt"), "after");
+        try (TestServer server = serve(root);
+             Socket socket = server.connect()) {
+            String requests = "GET /data.bin HTTP/1.1\r\nHost: x\r\n\r\nGET /after.txt HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            TestServer.Response file = TestServer.readResponse(in, false);
+            assertEquals(200, file.status());
+            assertEquals("bytes", file.header("Accept-Ranges"));
+            assertArrayEquals(content, file.body());
+            assertEquals("after", TestServer.readResponse(in, false).text());
+        }
+    }
+
+    @Test
+    void servesSingleRangeAsSliceOfFile(@TempDir Path root) throws Exception {
+        byte[] content = new byte[400_000];
+        new Random(7).nextBytes(content);
+        Files.write(root.resolve("data.bin"), content);
+        try (TestServer server = serve(root);
+             Socket socket = server.connect()) {
+            TestServer.Response response = get(socket, "/data.bin", "Range: bytes=1000-1999\r\n");
+
+            assertEquals(206, response.status());
+            assertEquals("bytes 1000-1999/400000", response.header("Content-Range"));
+            assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.body());
+        }
+    }
+
+    @Test
+    void rebuildsCachedFileWhenItChanges(@TempDir Path root) throws Exception {
+        Path css = Files.writeString(root.resolve("site.css"), "body { color: black; }\n");
+        Files.setLastModifiedTime(css, FileTime.fromMillis(1_600_000_000_000L));
+        try (TestServer server = serve(root);
+             Socket socket = server.connect()) {
+            assertEquals("body { color: black; }\n", get(socket, "/site.css", "").text());
+
+            Files.writeString(css, "body { color: white; }\n");
+            Files.setLastModifiedTime(css, FileTime.fromMillis(1_700_000_000_000L));
+
+            assertEquals("body { color: white; }\n", get(socket, "/site.css", "").text());
+        }
+    }
+
+    @Test
+    void refusesPathsLeavingDocumentRoot(@TempDir Path parent) throws Exception {
+        Path root = Files.createDirectories(parent.resolve("www"));
+        Files.writeString(parent.resolve("secret.txt"), "secret");
+        Files.createSymbolicLink(root.resolve("link.txt"), parent.resolve("secret.txt"));
+        try (TestServer server = serve(root);
+             Socket socket = server.connect()) {
+            assertEquals(404, get(socket, "/../secret.txt", "").status());
+            assertEquals(404, get(socket, "/%2e%2e/secret.txt", "").status());
+            assertEquals(404, get(socket, "/link.txt", "").status());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HttpRequestDecoderTest {
+
+    private static void feed(HttpRequestDecoder decoder, String text) {
+        decoder.feed(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void parsesRequestLineHeadersAndBody() throws Exception {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(4096);
+        feed(decoder, "POST /submit?x=1 HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello");
+
+        HttpRequest request = decoder.next();
+        assertNotNull(request);
+        assertEquals("POST", request.method());
+        assertEquals("/submit?x=1", request.path());
+        assertEquals("HTTP/1.1", request.version());
+        assertEquals("localhost", request.getHeader("host"));
+        assertArrayEquals("hello".getBytes(StandardCharsets.US_ASCII), request.body());
+        assertEquals(0, decoder.buffered());
+    }
+
+    @Test
+    void resumesRequestSplitAcrossEveryByte() throws Exception {
+        String text = "POST /a HTTP/1.1\r\nContent-Length: 3\r\nX-Test: yes\r\n\r\nabc";
+        HttpRequestDecoder decoder = new HttpRequestDecoder(4096);
+        for (int i = 0; i < text.length() - 1; i++) {
+            feed(decoder, text.substring(i, i + 1));
+            assertNull(decoder.next(), "complete after " + (i + 1) + " bytes");
+        }
+        feed(decoder, text.substring(text.length() - 1));
+
+        HttpRequest request = decoder.next();
+        assertNotNull(request);
+        assertEquals("yes", request.getHeader("X-Test"));
+        assertArrayEquals("abc".getBytes(StandardCharsets.US_ASCII), request.body());
+    }
+
+    @Test
+    void returnsPipelinedRequestsInOrder() throws Exception {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(4096);
+        feed(decoder, "GET /one HTTP/1.1\r\n\r\nPOST /two HTTP/1.1\r\nContent-Length: 2\r\n\r\nokGET /thr");
+
+        assertEquals("/one", decoder.next().path());
+        HttpRequest second = decoder.next();
+        assertEquals("/two", second.path());
+        assertArrayEquals("ok".getBytes(StandardCharsets.US_ASCII), second.body());
+        assertNull(decoder.next());
+        assertEquals("GET /thr".length(), decoder.buffered());
+
+        feed(decoder, "ee HTTP/1.1\r\n\r\n");
+        assertEquals("/three", decoder.next().path());
+        assertNull(decoder.next());
+        assertEquals(0, decoder.buffered());
+    }
+
+    @Test
+    void skipsEmptyLinesBeforeRequestLine() throws Exception {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(4096);
+        feed(decoder, "\r\n\r\nGET / HTTP/1.1\r\n\r\n");
+
+        assertEquals("/", decoder.next().path());
+    }
+
+    @Test
+    void rejectsMalformedRequestLineWith400() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(4096);
+        feed(decoder, "GARBAGE\r\n\r\n");
+
+        HttpParser.HttpParseException e = assertThrows(HttpParser.HttpParseException.class, decoder::next);
+        assertEquals(400, e.getStatusCode());
+    }
+
+    @Test
+    void rejectsInvalidContentLengthWith400() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(4096);
+        feed(decoder, "POST / HTTP/1.1\r\nContent-Length: -1\r\n\r\n");
+
+        assertEquals(400, assertThrows(HttpParser.HttpParseException.class, decoder::next).getStatusCode());
+    }
+
+    @Test
+    void rejectsDeclaredBodyOverLimitWith413() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(128);
+        feed(decoder, "POST / HTTP/1.1\r\nContent-Length: 1000\r\n\r\n");
+
+        assertEquals(413, assertThrows(HttpParser.HttpParseException.class, decoder::next).getStatusCode());
+    }
+
+    @Test
+    void rejectsContentLengthNearIntMaxWith413() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(128);
+        feed(decoder, "POST / HTTP/1.1\r\nContent-Length: " + Integer.MAX_VALUE + "\r\n\r\n");
+
+        assertEquals(413, assertThrows(HttpParser.HttpParseException.class, decoder::next).getStatusCode());
+    }
+
+    @Test
+    void rejectsUnterminatedHeadersOverLimitWith413() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(128);
+        feed(decoder, "GET / HTTP/1.1\r\n");
+        for (int i = 0; i < 20; i++) {
+            feed(decoder, "X-Header-" + i + ": v\r\n");
+        }
+
+        assertEquals(413, assertThrows(HttpParser.HttpParseException.class, decoder::next).getStatusCode());
+    }
+
+    @Test
+    void rejectsTooLongLine() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(1 << 20);
+        feed(decoder, "GET /" + "a".repeat(10_000));
+
+        assertEquals(400, assertThrows(HttpParser.HttpParseException.class, decoder::next).getStatusCode());
+    }
+
+    @Test
+    void rejectsTooManyHeaders() {
+        HttpRequestDecoder decoder = new HttpRequestDecoder(1 << 20);
+        StringBuilder text = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i < 65; i++) {
+            text.append("X-").append(i).append(": v\r\n");
+        }
+        feed(decoder, text.append("\r\n").toString());
+
+        assertEquals(400, assertThrows(HttpParser.HttpParseException.class, decoder::next).getStatusCode());
+    }
+}
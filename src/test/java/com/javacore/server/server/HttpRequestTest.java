@@ -0,0 +1,49 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpRequestTest {
+
+    private static HttpRequest request(String version, String connection) {
+        Map<String, String> headers = connection == null ? Map.of() : Map.of("Connection", connection);
+        return HttpRequest.of("GET", "/", version, headers, new byte[0]);
+    }
+
+    @Test
+    void http11KeepsConnectionOpenByDefault() {
+        assertTrue(request("HTTP/1.1", null).isKeepAlive());
+        assertTrue(request("HTTP/1.1", "keep-alive").isKeepAlive());
+    }
+
+    @Test
+    void http11ClosesOnCloseToken() {
+        assertFalse(request("HTTP/1.1", "close").isKeepAlive());
+        assertFalse(request("HTTP/1.1", "Close").isKeepAlive());
+        assertFalse(request("HTTP/1.1", "close, TE").isKeepAlive());
+        assertFalse(request("HTTP/1.1", "TE,close").isKeepAlive());
+    }
+
+    @Test
+    void http10ClosesByDefault() {
+        assertFalse(request("HTTP/1.0", null).isKeepAlive());
+        assertFalse(request("HTTP/1.0", "Upgrade").isKeepAlive());
+    }
+
+    @Test
+    void http10KeepsConnectionOpenOnKeepAliveToken() {
+        assertTrue(request("HTTP/1.0", "Keep-Alive").isKeepAlive());
+        assertTrue(request("HTTP/1.0", "keep-alive, Upgrade").isKeepAlive());
+        assertTrue(request("HTTP/1.0", "Upgrade ,  keep-alive").isKeepAlive());
+    }
+
+    @Test
+    void tokenMustMatchWhole() {
+        assertTrue(request("HTTP/1.1", "closed").isKeepAlive());
+        assertFalse(request("HTTP/1.0", "keep-alive-ish").isKeepAlive());
+    }
+}
@@ -0,0 +1,74 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void reportsPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(60_000, 4);
+        long now = System.nanoTime();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000L, now);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(1000, snapshot.max());
+        long p50 = snapshot.valueAt(50);
+        long p99 = snapshot.valueAt(99);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.0625, "p50 " + p50);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 " + p99);
+        assertEquals(500_500, snapshot.totalMicros());
+    }
+
+    @Test
+    void mergesValuesRecordedByManyThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram(60_000, 4);
+        int threads = Runtime.getRuntime().availableProcessors() * 2 + 1;
+        int perThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long micros = 10L * (t + 1);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(micros * 1000, System.nanoTime());
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) threads * perThread, snapshot.count());
+        assertEquals((long) threads * perThread, snapshot.totalCount());
+        assertEquals(10L * threads, snapshot.max());
+    }
+
+    @Test
+    void dropsValuesOutsideWindow() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000, 4);
+        histogram.record(5_000, System.nanoTime() - 5_000_000_000L);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(1, snapshot.totalCount());
+    }
+}
@@ -0,0 +1,113 @@
+package com.javacore.server.server;
+
+import com.javacore.server.handler.MetricsHandler;
+import com.javacore.server.handler.MetricsStreamHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsEndpointTest {
+
+    private static String chunk(InputStream in) throws Exception {
+        return new String(TestServer.readChunk(in), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void streamsOneEventPerSamplerTick() throws Exception {
+        MetricsHandler metrics = new MetricsHandler(null, null, 50);
+        Router router = new Router();
+        router.add("GET", "/api/metrics", metrics);
+        router.add("GET", "/api/metrics/stream", new MetricsStreamHandler(metrics));
+        metrics.start();
+        try (TestServer server = new TestServer(router, ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            socket.getOutputStream().write("GET /api/metrics/stream HTTP/1.1\r\nHost: x\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            TestServer.Response head = TestServer.readResponse(in, true);
+            assertEquals("text/event-stream; charset=utf-8", head.header("Content-Type"));
+            assertEquals("chunked", head.header("Transfer-Encoding"));
+            assertEquals("retry: 50\n\n", chunk(in));
+            String first = chunk(in);
+            String second = chunk(in);
+            assertTrue(first.startsWith("data: {\"sampledAt\":") && first.endsWith("}\n\n"), first);
+            assertNotEquals(first, second);
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    /**
+     * Waits until accepted connections have all been closed again.
+     */
+    private static void awaitConnections(ServerMetrics metrics, long accepted) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((metrics.accepted() != accepted || metrics.openConnections() != 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(accepted, metrics.accepted());
+        assertEquals(0, metrics.openConnections());
+    }
+
+    private static long number(String json, String field) {
+        Matcher matcher = Pattern.compile("\"" + field + "\":(\\d+)").matcher(json);
+        assertTrue(matcher.find(), field + " missing in " + json);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    @Test
+    void countsConnectionsBytesAndServerThreads() throws Exception {
+        ServerMetrics serverMetrics = new ServerMetrics();
+        MetricsHandler metrics = new MetricsHandler(null, serverMetrics);
+        Router router = new Router();
+        router.add("GET", "/api/metrics", metrics);
+        router.add("GET", "/echo/{name}", (req, res) -> res.setBody(req.pathParam("name")));
+        ServerConfig config = ServerConfig.defaults().setWorkerCount(1);
+        try (TestServer server = new TestServer(router, config, serverMetrics)) {
+            // TestServer's readiness probe is the first connection
+            awaitConnections(serverMetrics, 1);
+            // Baseline sample, so the next one reports rates
+            metrics.handle(HttpRequest.of("GET", "/api/metrics", Map.of(), new byte[0]), new HttpResponse());
+            byte[] request = "GET /echo/abc HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+            long received = 0;
+            for (int i = 0; i < 3; i++) {
+                try (Socket socket = server.connect()) {
+                    socket.getOutputStream().write(request);
+                    socket.shutdownOutput();
+                    received += socket.getInputStream().readAllBytes().length;
+                }
+            }
+            awaitConnections(serverMetrics, 4);
+
+            assertEquals(3L * request.length, serverMetrics.bytesIn());
+            assertEquals(received, serverMetrics.bytesOut());
+
+            try (Socket socket = server.connect()) {
+                socket.getOutputStream().write("GET /api/metrics HTTP/1.1\r\nHost: x\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+                String json = TestServer.readResponse(socket.getInputStream(), false).text();
+
+                assertTrue(json.contains("\"gc\":[{\"name\":"), json);
+                assertTrue(json.contains("\"bufferPools\":[{\"name\":"), json);
+                assertTrue(number(json, "loaded") > 0);
+                assertEquals(1, number(json, "openConnections"));
+                assertEquals(5, number(json, "accepted"));
+                assertTrue(number(json, "acceptedPerSec") > 0, json);
+                assertTrue(number(json, "bytesInPerSec") > 0, json);
+                assertTrue(json.contains("{\"name\":\"nio-worker-0\",\"allocatedBytes\":"), json);
+                assertTrue(json.contains("\"/echo/{name}\":{\"count\":3,"), json);
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NioServerTest {
+
+    private static Router echoRouter() {
+        Router router = new Router();
+        router.add("/echo/{name}", (req, res) -> {
+            if ("POST".equals(req.method())) {
+                res.setBody(req.pathParam("name") + ":" + new String(req.body(), StandardCharsets.UTF_8));
+            } else {
+                res.setBody(req.pathParam("name"));
+            }
+        });
+        return router;
+    }
+
+    private static Router headRouter() {
+        Router router = new Router();
+        router.add("GET", "/bytes", (req, res) -> res.setBody("hello bytes"));
+        router.add("GET", "/prebuilt", (req, res) -> {
+            HttpResponse page = new HttpResponse();
+            page.setBody("hello prebuilt");
+            res.setPrebuilt(PrebuiltResponse.of(page));
+        });
+        router.add("GET", "/stream", (req, res) -> res.setBodyStream(BodyStream.of(List.of(
+                ByteBuffer.wrap("hello ".getBytes(StandardCharsets.US_ASCII)),
+                ByteBuffer.wrap("stream".getBytes(StandardCharsets.US_ASCII))).iterator())));
+        router.add("POST", "/form", (req, res) -> res.setBody("posted"));
+        return router;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/bytes", "/prebuilt", "/stream"})
+    void headSendsGetHeadersWithoutBody(String path) throws Exception {
+        try (TestServer server = new TestServer(headRouter(), ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            String requests = "HEAD " + path + " HTTP/1.1\r\nHost: x\r\n\r\n"
+                    + "GET " + path + " HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            TestServer.Response head = TestServer.readResponse(in, true);
+            TestServer.Response get = path.equals("/stream")
+                    ? TestServer.readChunkedResponse(in)
+                    : TestServer.readResponse(in, false);
+            assertEquals(200, head.status());
+            assertEquals(200, get.status());
+            assertEquals(get.header("Content-Length"), head.header("Content-Length"));
+            assertEquals(get.header("Transfer-Encoding"), head.header("Transfer-Encoding"));
+            assertEquals("hello " + path.substring(1), get.text());
+        }
+    }
+
+    @Test
+    void answers405WithAllowHeader() throws Exception {
+        try (TestServer server = new TestServer(headRouter(), ServerConfig.defaults());
+             Socket socket = server.connect()) {
+            socket.getOutputStream().write("GET /form HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+            TestServer.Response response = TestServer.readResponse(socket.getInputStream(), false);
+            assertEquals(405, response.status());
+            assertEquals("POST", response.header("Allow"));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ServerConfig.DispatchMode.class)
+    void answersPipelinedRequestsInOrder(ServerConfig.DispatchMode mode) throws Exception {
+        try (TestServer server = new TestServer(echoRouter(), ServerConfig.defaults().setDispatchMode(mode));
+             Socket socket = server.connect()) {
+            String requests = "GET /echo/one HTTP/1.1\r\nHost: x\r\n\r\n"
+                    + "POST /echo/two HTTP/1.1\r\nHost: x\r\nContent-Length: 4\r\n\r\nbody"
+                    + "GET /echo/three HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            assertEquals("one", TestServer.readResponse(in, false).text());
+            assertEquals("two:body", TestServer.readResponse(in, false).text());
+            assertEquals("three", TestServer.readResponse(in, false).text());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ServerConfig.DispatchMode.class)
+    void closesAfterPipelinedRequestWithConnectionClose(ServerConfig.DispatchMode mode) throws Exception {
+        try (TestServer server = new TestServer(echoRouter(), ServerConfig.defaults().setDispatchMode(mode));
+             Socket socket = server.connect()) {
+            String requests = "GET /echo/one HTTP/1.1\r\nHost: x\r\n\r\n"
+                    + "GET /echo/two HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n"
+                    + "GET /echo/three HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            assertEquals("one", TestServer.readResponse(in, false).text());
+            TestServer.Response last = TestServer.readResponse(in, false);
+            assertEquals("two", last.text());
+            assertEquals("close", last.header("Connection"));
+            assertNull(TestServer.readResponse(in, false));
+        }
+    }
+
+    @Test
+    void http10ClosesUnlessKeepAliveToken() throws Exception {
+        try (TestServer server = new TestServer(echoRouter(), ServerConfig.defaults())) {
+            try (Socket socket = server.connect()) {
+                socket.getOutputStream().write("GET /echo/a HTTP/1.0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                InputStream in = socket.getInputStream();
+                assertEquals("a", TestServer.readResponse(in, false).text());
+                assertNull(TestServer.readResponse(in, false));
+            }
+            try (Socket socket = server.connect()) {
+                String request = "GET /echo/b HTTP/1.0\r\nConnection: keep-alive, Upgrade\r\n\r\n";
+                socket.getOutputStream().write((request + request).getBytes(StandardCharsets.US_ASCII));
+                InputStream in = socket.getInputStream();
+                TestServer.Response first = TestServer.readResponse(in, false);
+                assertEquals("keep-alive", first.header("Connection"));
+                assertEquals("b", TestServer.readResponse(in, false).text());
+            }
+        }
+    }
+
+    @Test
+    void closesAfterMaxRequestsPerConnection() throws Exception {
+        ServerConfig config = ServerConfig.defaults().setMaxRequestsPerConnection(2);
+        try (TestServer server = new TestServer(echoRouter(), config);
+             Socket socket = server.connect()) {
+            String request = "GET /echo/x HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write(request.repeat(3).getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            assertEquals("x", TestServer.readResponse(in, false).text());
+            assertEquals("close", TestServer.readResponse(in, false).header("Connection"));
+            assertNull(TestServer.readResponse(in, false));
+        }
+    }
+
+    private static String get(TestServer server, String path) throws Exception {
+        try (Socket socket = server.connect()) {
+            socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: x\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            return TestServer.readResponse(socket.getInputStream(), false).text();
+        }
+    }
+
+    @Test
+    void assignsConnectionsRoundRobinToWorkerReactors() throws Exception {
+        Router router = new Router();
+        router.add("GET", "/thread", (req, res) -> res.setBody(Thread.currentThread().getName()));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults().setWorkerCount(3))) {
+            List<String> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(get(server, "/thread"));
+            }
+
+            assertTrue(threads.get(0).startsWith("nio-worker-"), threads.get(0));
+            assertEquals(3, threads.subList(0, 3).stream().distinct().count(), threads.toString());
+            assertEquals(threads.get(0), threads.get(3));
+        }
+    }
+
+    @Test
+    void blockedReactorDoesNotStallConnectionsOfOtherReactors() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> blockedThread = new AtomicReference<>();
+        Router router = new Router();
+        router.add("GET", "/block", (req, res) -> {
+            blockedThread.set(Thread.currentThread().getName());
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            res.setBody("released");
+        });
+        router.add("GET", "/thread", (req, res) -> res.setBody(Thread.currentThread().getName()));
+        try (TestServer server = new TestServer(router, ServerConfig.defaults().setWorkerCount(2));
+             Socket blocked = server.connect()) {
+            blocked.getOutputStream().write("GET /block HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+            String other = get(server, "/thread");
+            release.countDown();
+
+            assertEquals("released", TestServer.readResponse(blocked.getInputStream(), false).text());
+            assertNotEquals(blockedThread.get(), other);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void executorDispatchRunsHandlersOffReactorThread() throws Exception {
+        Router router = new Router();
+        router.add("GET", "/thread", (req, res) -> res.setBody(Thread.currentThread().getName()));
+        router.add("GET", "/fail", (req, res) -> {
+            throw new IllegalStateException("boom");
+        });
+        ServerConfig config = ServerConfig.defaults().setDispatchMode(ServerConfig.DispatchMode.EXECUTOR);
+        try (TestServer server = new TestServer(router, config);
+             Socket socket = server.connect()) {
+            String requests = "GET /thread HTTP/1.1\r\nHost: x\r\n\r\nGET /fail HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            String thread = TestServer.readResponse(in, false).text();
+            assertFalse(thread.startsWith("nio-worker-"), thread);
+            assertEquals(500, TestServer.readResponse(in, false).status());
+        }
+    }
+
+    @Test
+    void executorDispatchKeepsReactorServingWhileHandlerBlocks() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Router router = new Router();
+        router.add("GET", "/block", (req, res) -> {
+            await(release);
+            res.setBody("released");
+        });
+        router.add("GET", "/echo/{name}", (req, res) -> res.setBody(req.pathParam("name")));
+        ServerConfig config = ServerConfig.defaults()
+                .setWorkerCount(1)
+                .setDispatchMode(ServerConfig.DispatchMode.EXECUTOR);
+        try (TestServer server = new TestServer(router, config);
+             Socket blocked = server.connect()) {
+            blocked.getOutputStream().write("GET /block HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+            assertEquals("free", get(server, "/echo/free"));
+            release.countDown();
+            assertEquals("released", TestServer.readResponse(blocked.getInputStream(), false).text());
+        }
+    }
+
+    @Test
+    void closesStreamOfHandlerFinishingAfterConnectionClosed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        Router router = new Router();
+        router.add("GET", "/large", (req, res) -> res.setBody(new byte[16 * 1024 * 1024]));
+        router.add("GET", "/slow", (req, res) -> {
+            started.countDown();
+            await(release);
+            res.setBodyStream(new BodyStream() {
+                @Override
+                public ByteBuffer next() {
+                    return null;
+                }
+
+                @Override
+                public void close() {
+                    closed.countDown();
+                }
+            });
+        });
+        ServerConfig config = ServerConfig.defaults()
+                .setWorkerCount(1)
+                .setDispatchMode(ServerConfig.DispatchMode.EXECUTOR);
+        try (TestServer server = new TestServer(router, config)) {
+            try (Socket socket = server.connect()) {
+                String requests = "GET /large HTTP/1.1\r\nHost: x\r\n\r\nGET /slow HTTP/1.1\r\nHost: x\r\n\r\n";
+                socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+                // Reset instead of a graceful close, so the pending write of /large fails at once
+                socket.setSoLinger(true, 0);
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            assertTrue(closed.await(5, TimeUnit.SECONDS), "body stream of the dropped response was not closed");
+        }
+    }
+
+    @Test
+    void reusesPooledBuffersAcrossReadsAndWrites() throws Exception {
+        ServerConfig config = ServerConfig.defaults()
+                .setWorkerCount(1)
+                .setBufferSize(1024)
+                .setMaxPooledBuffers(16);
+        try (TestServer server = new TestServer(echoRouter(), config);
+             Socket socket = server.connect()) {
+            String body = "x".repeat(10_000);
+            String request = "POST /echo/big HTTP/1.1\r\nHost: x\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+            InputStream in = socket.getInputStream();
+            for (int i = 0; i < 5; i++) {
+                socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+                assertEquals("big:" + body, TestServer.readResponse(in, false).text());
+            }
+
+            BufferPool.Stats stats = server.server().bufferPoolStats();
+            long deadline = System.currentTimeMillis() + 2_000;
+            while (stats.inUse() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                stats = server.server().bufferPoolStats();
+            }
+            assertEquals(0, stats.inUse());
+            assertEquals(1, stats.misses());
+            assertTrue(stats.hits() > 10, stats.toString());
+        }
+    }
+
+    @Test
+    void sendsHeadAndManyBodyBuffersWithGatheringWrites() throws Exception {
+        StringBuilder expected = new StringBuilder();
+        ByteBuffer[] parts = new ByteBuffer[40];
+        for (int i = 0; i < parts.length; i++) {
+            String part = i + "-" + "p".repeat(i * 100) + ";";
+            expected.append(part);
+            parts[i] = ByteBuffer.wrap(part.getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+        }
+        Router router = new Router();
+        router.add("GET", "/parts", (req, res) -> {
+            ByteBuffer[] views = new ByteBuffer[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                views[i] = parts[i].duplicate();
+            }
+            res.setBodyBuffers(views);
+        });
+        ServerConfig config = ServerConfig.defaults().setBufferSize(1024);
+        try (TestServer server = new TestServer(router, config);
+             Socket socket = server.connect()) {
+            String request = "GET /parts HTTP/1.1\r\nHost: x\r\n\r\n";
+            socket.getOutputStream().write((request + request).getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+
+            for (int i = 0; i < 2; i++) {
+                TestServer.Response response = TestServer.readResponse(in, false);
+                assertEquals(String.valueOf(expected.length()), response.header("Content-Length"));
+                assertEquals(expected.toString(), response.text());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapStoreTest {
+
+    /**
+     * Releases happen after the owner is collected; nudges the GC until expected is reached.
+     */
+    private static void awaitValue(long expected, LongSupplier actual) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (actual.getAsLong() != expected && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(expected, actual.getAsLong());
+    }
+
+    @Test
+    void storesPartsBackToBack() {
+        OffHeapStore store = new OffHeapStore();
+        Object owner = new Object();
+
+        ByteBuffer region = store.store(owner, new byte[]{1, 2}, new byte[]{3});
+
+        assertTrue(region.isDirect());
+        assertTrue(region.isReadOnly());
+        assertEquals(3, region.remaining());
+        assertEquals(1, region.get(0));
+        assertEquals(3, region.get(2));
+        assertEquals(3, store.liveBytes());
+        assertEquals(1, store.slabCount());
+    }
+
+    @Test
+    void releasesEntriesOfUnreachableOwners() throws InterruptedException {
+        OffHeapStore store = new OffHeapStore();
+        Object kept = new Object();
+        store.store(kept, new byte[100]);
+        for (int i = 0; i < 64; i++) {
+            store.store(new Object(), new byte[64 * 1024]);
+        }
+        store.store(new Object(), new byte[512 * 1024]);
+        assertTrue(store.slabCount() > 1);
+
+        awaitValue(100, store::liveBytes);
+        // The first slab still holds the kept entry; the others are dropped except the one being filled.
+        assertEquals(2, store.slabCount());
+        assertEquals(100, store.liveBytes(), kept.toString());
+    }
+}
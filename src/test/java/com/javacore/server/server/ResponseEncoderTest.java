@@ -0,0 +1,97 @@
+package com.javacore.server.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseEncoderTest {
+
+    private final ResponseEncoder encoder = new ResponseEncoder(ServerConfig.defaults().setIdleTimeoutMillis(7_000));
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+    @Test
+    void encodesStatusHeadersLengthAndKeepAlive() {
+        HttpResponse response = new HttpResponse();
+        response.setHeader("X-Custom", "one");
+        response.setBody("hello");
+        ByteBuffer out = ByteBuffer.allocate(1024);
+
+        ByteBuffer head = encoder.encodeHead(response, true, out);
+
+        assertSame(out, head);
+        String text = text(head);
+        assertTrue(text.startsWith("HTTP/1.1 200 OK\r\n"), text);
+        assertTrue(text.contains("\r\nContent-Type: text/html; charset=utf-8\r\n"), text);
+        assertTrue(text.contains("\r\nX-Custom: one\r\n"), text);
+        assertTrue(text.contains("\r\nContent-Length: 5\r\n"), text);
+        assertTrue(text.endsWith("Connection: keep-alive\r\nKeep-Alive: timeout=7\r\n\r\n"), text);
+    }
+
+    @Test
+    void encodesCustomStatusMessageAndClose() {
+        HttpResponse response = new HttpResponse();
+        response.setStatus(404, "Nothing Here");
+
+        String text = text(encoder.encodeHead(response, false, ByteBuffer.allocate(1024)));
+
+        assertTrue(text.startsWith("HTTP/1.1 404 Nothing Here\r\n"), text);
+        assertTrue(text.contains("\r\nContent-Length: 0\r\n"), text);
+        assertTrue(text.endsWith("Connection: close\r\n\r\n"), text);
+    }
+
+    @Test
+    void omitsContentLengthForNotModifiedAndUnknownLengthStreams() {
+        HttpResponse notModified = new HttpResponse();
+        notModified.setStatusCode(304);
+        HttpResponse streamed = new HttpResponse();
+        streamed.setBodyStream(() -> null);
+
+        assertFalse(text(encoder.encodeHead(notModified, true, ByteBuffer.allocate(1024))).contains("Content-Length"));
+        assertFalse(text(encoder.encodeHead(streamed, true, ByteBuffer.allocate(1024))).contains("Content-Length"));
+    }
+
+    @Test
+    void encodesNonAsciiHeaderValuesAsUtf8() {
+        HttpResponse response = new HttpResponse();
+        response.setHeader("Content-Disposition", "attachment; filename=\"bài-học.txt\"");
+
+        String text = text(encoder.encodeHead(response, true, ByteBuffer.allocate(1024)));
+
+        assertTrue(text.contains("filename=\"bài-học.txt\""), text);
+    }
+
+    @Test
+    void returnsLargerBufferWhenHeadDoesNotFit() {
+        HttpResponse response = new HttpResponse();
+        response.setHeader("X-Large", "v".repeat(3_000));
+        ByteBuffer out = ByteBuffer.allocateDirect(256);
+
+        ByteBuffer head = encoder.encodeHead(response, true, out);
+
+        assertNotSame(out, head);
+        String text = text(head);
+        assertTrue(text.startsWith("HTTP/1.1 200 OK\r\n"), text);
+        assertTrue(text.contains("v".repeat(3_000)), text);
+        assertTrue(text.endsWith("\r\n\r\n"), text);
+    }
+
+    @Test
+    void connectionTailsAreIndependentViews() {
+        ByteBuffer first = encoder.connectionTail(false);
+        ByteBuffer second = encoder.connectionTail(false);
+        first.position(first.limit());
+
+        assertEquals("Connection: close\r\n\r\n", text(second));
+        assertEquals("Connection: keep-alive\r\nKeep-Alive: timeout=7\r\n\r\n", text(encoder.connectionTail(true)));
+    }
+}
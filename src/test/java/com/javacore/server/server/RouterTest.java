@@ -0,0 +1,138 @@
+package com.javacore.server.server;
+
+import com.javacore.server.handler.HttpHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouterTest {
+
+    private static HttpHandler handler() {
+        return (req, res) -> {
+        };
+    }
+
+    @Test
+    void matchesStaticRoutesExactly() {
+        Router router = new Router();
+        HttpHandler metrics = handler();
+        HttpHandler metricsStream = handler();
+        router.add("GET", "/api/metrics", metrics);
+        router.add("GET", "/api/metrics/stream", metricsStream);
+
+        assertSame(metrics, router.match("GET", "/api/metrics").handler());
+        assertSame(metricsStream, router.match("GET", "/api/metrics/stream").handler());
+        assertNull(router.match("GET", "/api/metric"));
+        assertNull(router.match("GET", "/api/metrics/other"));
+    }
+
+    @Test
+    void capturesParameters() {
+        Router router = new Router();
+        router.add("GET", "/topics/{slug}", handler());
+        router.add("GET", "/users/{id}/posts/{post}", handler());
+
+        Router.RouteMatch topic = router.match("GET", "/topics/oop");
+        assertEquals(Map.of("slug", "oop"), topic.pathParams());
+        assertEquals("/topics/{slug}", topic.route());
+        assertEquals(Map.of("id", "7", "post", "42"), router.match("GET", "/users/7/posts/42").pathParams());
+        assertNull(router.match("GET", "/topics/"));
+        assertNull(router.match("GET", "/topics/oop/extra"));
+    }
+
+    @Test
+    void staticWinsOverParameterWhichWinsOverWildcard() {
+        Router router = new Router();
+        HttpHandler exact = handler();
+        HttpHandler param = handler();
+        HttpHandler rest = handler();
+        router.add("/files/index", exact);
+        router.add("/files/{name}", param);
+        router.add("/files/{path*}", rest);
+
+        assertSame(exact, router.match("GET", "/files/index").handler());
+        assertSame(param, router.match("GET", "/files/readme").handler());
+        assertSame(param, router.match("GET", "/files/indexes").handler());
+        assertSame(rest, router.match("GET", "/files/a/b.txt").handler());
+    }
+
+    @Test
+    void wildcardCapturesRestOfPath() {
+        Router router = new Router();
+        router.add("GET", "/css/{path*}", handler());
+
+        assertEquals(Map.of("path", "a/b/style.css"), router.match("GET", "/css/a/b/style.css").pathParams());
+        assertEquals(Map.of("path", ""), router.match("GET", "/css/").pathParams());
+        assertNull(router.match("GET", "/cs"));
+    }
+
+    @Test
+    void legacyPrefixRoutes() {
+        Router router = new Router();
+        HttpHandler root = handler();
+        HttpHandler api = handler();
+        router.addRoute("/", root);
+        router.addRoute("/api", api);
+
+        assertSame(root, router.match("GET", "/").handler());
+        assertSame(root, router.match("GET", "").handler());
+        assertSame(api, router.match("GET", "/api/anything").handler());
+        assertNull(router.match("GET", "/other"));
+    }
+
+    @Test
+    void otherMethodGivesMatchWithoutHandlerAndAllowedMethods() {
+        Router router = new Router();
+        router.add("GET", "/form", handler());
+        router.add("POST", "/form", handler());
+
+        Router.RouteMatch match = router.match("DELETE", "/form");
+        assertNotNull(match);
+        assertNull(match.handler());
+        assertEquals(Set.of("GET", "POST"), match.allowedMethods());
+    }
+
+    @Test
+    void headFallsBackToGet() {
+        Router router = new Router();
+        HttpHandler get = handler();
+        router.add("GET", "/page", get);
+        HttpHandler head = handler();
+        router.add("GET", "/other", handler());
+        router.add("HEAD", "/other", head);
+
+        assertSame(get, router.match("HEAD", "/page").handler());
+        assertSame(head, router.match("HEAD", "/other").handler());
+        assertNull(router.match("POST", "/page").handler());
+    }
+
+    @Test
+    void anyMethodRouteAcceptsEveryMethod() {
+        Router router = new Router();
+        HttpHandler any = handler();
+        router.add("/echo", any);
+
+        assertSame(any, router.match("PUT", "/echo").handler());
+        assertEquals(Set.of("*"), router.match("PUT", "/echo").allowedMethods());
+    }
+
+    @Test
+    void rejectsMalformedAndConflictingPatterns() {
+        Router router = new Router();
+        router.add("GET", "/a/{id}", handler());
+
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "no-slash", handler()));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/b/{id", handler()));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/b/x{id}", handler()));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/b/*/c", handler()));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/a/{name}", handler()));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/a/{id}", handler()));
+    }
+}
@@ -0,0 +1,146 @@
+package com.javacore.server.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * NioServer on a free local port, run on a daemon thread, plus a minimal blocking HTTP client
+ * for reading raw responses off a socket. Public so tests of other packages (the load generator)
+ * can run against it.
+ */
+public final class TestServer implements AutoCloseable {
+
+    private final NioServer server;
+    private final int port;
+
+    public TestServer(Router router, ServerConfig config) throws IOException, InterruptedException {
+        this(router, config, new ServerMetrics());
+    }
+
+    public TestServer(Router router, ServerConfig config, ServerMetrics metrics) throws IOException, InterruptedException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        server = new NioServer(port, router, config, metrics);
+        Thread thread = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "test-server-" + port);
+        thread.setDaemon(true);
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("localhost", port), 500);
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    NioServer server() {
+        return server;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.setSoTimeout(5_000);
+        return socket;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Reads one response; its body is read by Content-Length unless bodyless (a response to HEAD).
+     */
+    static Response readResponse(InputStream in, boolean bodyless) throws IOException {
+        String statusLine = readLine(in);
+        if (statusLine == null) {
+            return null;
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+        }
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        String length = headers.get("content-length");
+        byte[] body = bodyless || length == null ? new byte[0] : in.readNBytes(Integer.parseInt(length));
+        return new Response(status, headers, body);
+    }
+
+    /**
+     * Reads one response with a chunked body, returning the de-chunked body.
+     */
+    static Response readChunkedResponse(InputStream in) throws IOException {
+        Response head = readResponse(in, true);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk;
+        while ((chunk = readChunk(in)) != null) {
+            body.write(chunk);
+        }
+        return new Response(head.status(), head.headers(), body.toByteArray());
+    }
+
+    /**
+     * Reads one chunk of a chunked body, for streams that never end.
+     *
+     * @return the chunk data, or null for the last chunk
+     */
+    static byte[] readChunk(InputStream in) throws IOException {
+        int size = Integer.parseInt(readLine(in).trim(), 16);
+        if (size == 0) {
+            readLine(in);
+            return null;
+        }
+        byte[] chunk = in.readNBytes(size);
+        readLine(in);
+        return chunk;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                String text = line.toString(StandardCharsets.US_ASCII);
+                return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+            }
+            line.write(b);
+        }
+        return line.size() > 0 ? line.toString(StandardCharsets.US_ASCII) : null;
+    }
+
+    record Response(int status, Map<String, String> headers, byte[] body) {
+
+        String header(String name) {
+            return headers.get(name.toLowerCase());
+        }
+
+        String text() {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.javacore.server.topic;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JavaCoreTopicTest {
+
+    private static JavaCoreTopic topic(List<String> fragments, String html) {
+        return new JavaCoreTopic() {
+            @Override
+            public String getSlug() {
+                return "test-topic";
+            }
+
+            @Override
+            public String getTitle() {
+                return "Test";
+            }
+
+            @Override
+            public String getDescription() {
+                return "";
+            }
+
+            @Override
+            public List<String> getFragments() {
+                return fragments;
+            }
+
+            @Override
+            public String getContentHtml() {
+                return html != null ? html : JavaCoreTopic.super.getContentHtml();
+            }
+        };
+    }
+
+    @Test
+    void contentWithoutFragmentsOrHtmlFailsClearly() {
+        JavaCoreTopic empty = topic(List.of(), null);
+
+        assertThrows(IllegalStateException.class, empty::getContentHtml);
+        assertThrows(IllegalStateException.class, empty::getContentUtf8);
+    }
+
+    @Test
+    void contentFromOverriddenHtml() {
+        JavaCoreTopic topic = topic(List.of(), "<p>Xin chào</p>");
+
+        assertArrayEquals("<p>Xin chào</p>".getBytes(StandardCharsets.UTF_8), topic.getContentUtf8());
+    }
+
+    @Test
+    void registeredTopicsRenderBothForms() {
+        for (JavaCoreTopic topic : TopicRegistry.getAll()) {
+            assertEquals(topic.getContentHtml(), new String(topic.getContentUtf8(), StandardCharsets.UTF_8),
+                    topic.getSlug());
+        }
+    }
+}
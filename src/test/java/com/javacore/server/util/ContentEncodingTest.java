@@ -0,0 +1,103 @@
+package com.javacore.server.util;
+
+import com.javacore.server.server.HttpRequest;
+import com.javacore.server.server.HttpResponse;
+import com.javacore.server.util.ContentEncoding.Coding;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContentEncodingTest {
+
+    private static final byte[] TEXT = "<p>Java core</p>\n".repeat(64).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void identityWithoutHeader() {
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate(null));
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate(""));
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate("br, identity"));
+    }
+
+    @Test
+    void prefersGzipAtEqualQuality() {
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("deflate, gzip"));
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("gzip, deflate, br"));
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("x-gzip"));
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("GZIP"));
+    }
+
+    @Test
+    void followsQualityValues() {
+        assertEquals(Coding.DEFLATE, ContentEncoding.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("gzip; q=0.9, deflate;q=0.8"));
+    }
+
+    @Test
+    void zeroQualityRefusesCoding() {
+        assertEquals(Coding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, deflate"));
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate("gzip;q=0, deflate;q=0"));
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate("gzip;q=0"));
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate("gzip;q=oops"));
+    }
+
+    @Test
+    void wildcardCoversUnlistedCodings() {
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("*"));
+        assertEquals(Coding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, *"));
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("deflate;q=0.1, *;q=0.5"));
+        assertEquals(Coding.IDENTITY, ContentEncoding.negotiate("*;q=0"));
+        assertEquals(Coding.GZIP, ContentEncoding.negotiate("gzip, *;q=0"));
+    }
+
+    @Test
+    void encodedBodiesRoundTrip() throws IOException {
+        byte[] gzip = ContentEncoding.encode(TEXT, Coding.GZIP, Deflater.BEST_COMPRESSION);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(TEXT, in.readAllBytes());
+        }
+        byte[] deflate = ContentEncoding.encode(TEXT, Coding.DEFLATE, Deflater.DEFAULT_COMPRESSION);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(deflate))) {
+            assertArrayEquals(TEXT, in.readAllBytes());
+        }
+        assertArrayEquals(TEXT, ContentEncoding.encode(TEXT, Coding.IDENTITY, Deflater.BEST_COMPRESSION));
+    }
+
+    @Test
+    void compressSetsHeadersForNegotiatedCoding() {
+        HttpRequest req = HttpRequest.of("GET", "/", Map.of("Accept-Encoding", "deflate"), new byte[0]);
+        HttpResponse res = new HttpResponse();
+        res.setContentType("text/html; charset=utf-8");
+        res.setBody(TEXT);
+
+        assertEquals(Coding.DEFLATE, ContentEncoding.compress(req, res));
+        assertEquals("deflate", res.getHeaders().get("Content-Encoding"));
+        assertEquals(ContentEncoding.VARY_VALUE, res.getHeaders().get("Vary"));
+    }
+
+    @Test
+    void compressLeavesSmallOrBinaryBodies() {
+        HttpRequest req = HttpRequest.of("GET", "/", Map.of("Accept-Encoding", "gzip"), new byte[0]);
+        HttpResponse small = new HttpResponse();
+        small.setContentType("text/plain");
+        small.setBody("short");
+        HttpResponse image = new HttpResponse();
+        image.setContentType("image/png");
+        image.setBody(TEXT);
+
+        assertEquals(Coding.IDENTITY, ContentEncoding.compress(req, small));
+        assertEquals(Coding.IDENTITY, ContentEncoding.compress(req, image));
+        assertNull(image.getHeaders().get("Content-Encoding"));
+        assertArrayEquals(TEXT, image.getBody());
+    }
+}
@@ -0,0 +1,104 @@
+package com.javacore.server.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TemplateTest {
+
+    private static String render(Template template, Map<String, ?> values) {
+        return new String(template.render(values), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void escapesHtmlInDoubleBraces() {
+        Template template = Template.compile("<p title=\"{{title}}\">{{body}}</p>");
+
+        assertEquals("<p title=\"&quot;a&quot; &amp; &#39;b&#39;\">&lt;script&gt;</p>",
+                render(template, Map.of("title", "\"a\" & 'b'", "body", "<script>")));
+    }
+
+    @Test
+    void insertsRawInTripleBraces() {
+        Template template = Template.compile("<div>{{{html}}}</div>");
+
+        assertEquals("<div><b>x</b></div>", render(template, Map.of("html", "<b>x</b>")));
+        assertEquals("<div><i>y</i></div>",
+                render(template, Map.of("html", "<i>y</i>".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void encodesNonAsciiAsUtf8() {
+        Template template = Template.compile("{{a}}|{{{b}}}");
+        String text = "Tiếng Việt – 😀 <";
+
+        assertEquals("Tiếng Việt – 😀 &lt;|" + text, render(template, Map.of("a", text, "b", text)));
+    }
+
+    @Test
+    void missingValuesRenderEmpty() {
+        Template template = Template.compile("[{{a}}][{{{b}}}]");
+
+        assertEquals("[][]", render(template, new HashMap<>()));
+    }
+
+    @Test
+    void rejectsBytesForEscapedSlot() {
+        Template template = Template.compile("{{a}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("a", new byte[1])));
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("a", 42)));
+    }
+
+    @Test
+    void inlinesIncludesAtCompileTime() {
+        Map<String, String> files = Map.of(
+                "header.html", "<h1>{{title}}</h1>{{> nav.html}}",
+                "nav.html", "<nav>{{{links}}}</nav>");
+        Template template = Template.compile("{{> header.html}}<main>{{body}}</main>", files::get);
+
+        assertEquals(List.of("title", "links", "body"), template.slots());
+        assertEquals("<h1>A&amp;B</h1><nav><a>1</a></nav><main>text</main>",
+                render(template, Map.of("title", "A&B", "links", "<a>1</a>", "body", "text")));
+    }
+
+    @Test
+    void rejectsMissingAndCyclicIncludes() {
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("{{> missing.html}}"));
+        Map<String, String> files = Map.of("a.html", "{{> b.html}}", "b.html", "{{> a.html}}");
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("{{> a.html}}", files::get));
+    }
+
+    @Test
+    void rejectsMalformedTags() {
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("<p>{{title</p>"));
+        assertThrows(IllegalArgumentException.class, () -> Template.compile("<p>{{ }}</p>"));
+    }
+
+    @Test
+    void loadsIncludesNextToTemplateFile(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("layout.html"), "<html>{{> part.html}}</html>");
+        Files.writeString(dir.resolve("part.html"), "<body>{{body}}</body>");
+
+        assertEquals("<html><body>x</body></html>", render(Template.load(dir.resolve("layout.html")), Map.of("body", "x")));
+    }
+
+    @Test
+    void escapeHtmlReturnsSameStringWhenNothingToEscape() {
+        String plain = "plain text";
+
+        assertEquals("a &lt; b", Template.escapeHtml("a < b"));
+        assertEquals("", Template.escapeHtml(null));
+        assertEquals(plain, Template.escapeHtml(plain));
+    }
+}